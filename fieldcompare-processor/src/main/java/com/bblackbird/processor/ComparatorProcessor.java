@@ -0,0 +1,322 @@
+package com.bblackbird.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates {@code com.bblackbird.CompiledComparator} source for every class annotated with {@code com.bblackbird.GenerateComparator}.
+ *
+ * Generated class is placed in the bean package and named after the bean binary simple name with '$' replaced by '_',
+ * followed by "_FieldComparator", which is how it is looked up at runtime.
+ * Every non static field, going up the class hierarchy, is read directly if accessible from the bean package,
+ * record components through their accessor methods, and other fields through a getter ({@code getX()}, {@code isX()} or {@code x()})
+ * returning the field type, which is expected to return the field as is. Field with no such access fails compilation,
+ * rather than being left to reflection at runtime.
+ */
+@SupportedAnnotationTypes(ComparatorProcessor.ANNOTATION)
+public class ComparatorProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION = "com.bblackbird.GenerateComparator";
+    static final String BASE = "com.bblackbird.CompiledComparator";
+    static final String SUFFIX = "_FieldComparator";
+
+    private static final TypeKind[] PRIMITIVES = {
+            TypeKind.INT, TypeKind.LONG, TypeKind.SHORT, TypeKind.DOUBLE, TypeKind.FLOAT, TypeKind.BOOLEAN, TypeKind.CHAR, TypeKind.BYTE
+    };
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null)
+            return false;
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+            try {
+                generate(type);
+            } catch (IOException e) {
+                error(type, "Failed to write comparator for " + type + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.RECORD) {
+            error(type, "@GenerateComparator is only supported on classes");
+            return;
+        }
+        if (!isAccessible(type)) {
+            error(type, "@GenerateComparator class must not be private");
+            return;
+        }
+
+        Elements elements = processingEnv.getElementUtils();
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') + SUFFIX;
+        String beanType = erasure(type.asType());
+
+        List<FieldAccess> fields = fields(type, packageName);
+        if (fields == null)
+            return;
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty())
+            src.append("package ").append(packageName).append(";\n\n");
+        src.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        src.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        src.append("public final class ").append(simpleName).append(" extends ").append(BASE).append(" {\n\n");
+
+        src.append("    public ").append(simpleName).append("() {\n");
+        src.append("        super(").append(beanType).append(".class,\n");
+        src.append("                new String[]{");
+        for (int i = 0; i < fields.size(); i++)
+            src.append(i > 0 ? ", " : "").append('"').append(fields.get(i).declaringClass).append('"');
+        src.append("},\n");
+        src.append("                new String[]{");
+        for (int i = 0; i < fields.size(); i++)
+            src.append(i > 0 ? ", " : "").append('"').append(fields.get(i).name).append('"');
+        src.append("});\n");
+        src.append("    }\n\n");
+
+        src.append("    @Override\n");
+        src.append("    public boolean isCandidate(int field, Object left, Object right) {\n");
+        src.append("        ").append(beanType).append(" l = (").append(beanType).append(") left;\n");
+        src.append("        ").append(beanType).append(" r = (").append(beanType).append(") right;\n");
+        src.append("        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            src.append("            case ").append(i).append(": return ").append(candidate(fields.get(i))).append(";\n");
+        }
+        src.append("            default: return true;\n");
+        src.append("        }\n");
+        src.append("    }\n\n");
+
+        src.append("    @Override\n");
+        src.append("    public Object getValue(int field, Object bean) {\n");
+        src.append("        ").append(beanType).append(" b = (").append(beanType).append(") bean;\n");
+        src.append("        switch (field) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            src.append("            case ").append(i).append(": return ").append(fields.get(i).read("b")).append(";\n");
+        }
+        src.append("            default: throw new IndexOutOfBoundsException(field);\n");
+        src.append("        }\n");
+        src.append("    }\n");
+
+        // Typed getters read primitive fields without boxing, for the types there are fields of
+        for (TypeKind kind : PRIMITIVES) {
+            String primitive = kind.name().toLowerCase();
+            String getter = "get" + Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+            boolean any = false;
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).type.getKind() != kind)
+                    continue;
+                if (!any) {
+                    src.append("\n    @Override\n");
+                    src.append("    public ").append(primitive).append(' ').append(getter).append("(int field, Object bean) {\n");
+                    src.append("        ").append(beanType).append(" b = (").append(beanType).append(") bean;\n");
+                    src.append("        switch (field) {\n");
+                    any = true;
+                }
+                src.append("            case ").append(i).append(": return ").append(fields.get(i).read("b")).append(";\n");
+            }
+            if (any) {
+                src.append("            default: return super.").append(getter).append("(field, bean);\n");
+                src.append("        }\n");
+                src.append("    }\n");
+            }
+        }
+        src.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    /**
+     * Returns how every field is read, or null if some field can't be read, which is reported as an error.
+     */
+    private List<FieldAccess> fields(TypeElement type, String packageName) {
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+        List<FieldAccess> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        boolean complete = true;
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            String declaringClass = elements.getBinaryName(current).toString();
+            // Super class fields are read through a cast in case they are hidden, while getters would resolve to the subclass ones
+            String cast = current == type ? null : erasure(current.asType());
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC))
+                    continue;
+                String name = field.getSimpleName().toString();
+                boolean hidden = !names.add(name);
+                TypeMirror fieldType = types.erasure(field.asType());
+                if (isAccessible(field, current, packageName)) {
+                    fields.add(new FieldAccess(declaringClass, name, fieldType, cast, name));
+                    continue;
+                }
+                ExecutableElement getter = hidden ? null : current.getKind() == ElementKind.RECORD ?
+                        accessor(current, name, packageName) : getter(methods, name, fieldType, packageName);
+                if (getter != null) {
+                    fields.add(new FieldAccess(declaringClass, name, fieldType, null, getter.getSimpleName() + "()"));
+                } else {
+                    error(field, "Field " + name + " of " + type + " is not accessible from package " + packageName
+                            + (hidden ? " and is hidden by a subclass field" : " and has no accessible getter returning its type"));
+                    complete = false;
+                }
+            }
+        }
+        return complete ? fields : null;
+    }
+
+    private ExecutableElement accessor(TypeElement record, String name, String packageName) {
+        for (RecordComponentElement component : record.getRecordComponents()) {
+            ExecutableElement accessor = component.getAccessor();
+            if (component.getSimpleName().contentEquals(name) && accessor != null && isAccessible(accessor, record, packageName))
+                return accessor;
+        }
+        return null;
+    }
+
+    private ExecutableElement getter(List<ExecutableElement> methods, String name, TypeMirror fieldType, String packageName) {
+        Types types = processingEnv.getTypeUtils();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        List<String> names = new ArrayList<>(List.of("get" + capitalized, name));
+        if (fieldType.getKind() == TypeKind.BOOLEAN)
+            names.add(1, "is" + capitalized);
+        for (String getterName : names) {
+            for (ExecutableElement method : methods) {
+                if (method.getSimpleName().contentEquals(getterName) && method.getParameters().isEmpty()
+                        && !method.getModifiers().contains(Modifier.STATIC)
+                        && types.isSameType(types.erasure(method.getReturnType()), fieldType)
+                        && isAccessible(method, (TypeElement) method.getEnclosingElement(), packageName))
+                    return method;
+            }
+        }
+        return null;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED)
+            return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private boolean isAccessible(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isAccessible(Element member, TypeElement declaringClass, String packageName) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE))
+            return false;
+        String declaringPackage = processingEnv.getElementUtils().getPackageOf(declaringClass).getQualifiedName().toString();
+        if (declaringPackage.equals(packageName))
+            return true;
+        return modifiers.contains(Modifier.PUBLIC) && declaringClass.getModifiers().contains(Modifier.PUBLIC);
+    }
+
+    private String candidate(FieldAccess field) {
+        String left = field.read("l");
+        String right = field.read("r");
+        switch (field.type.getKind()) {
+            case DOUBLE:
+                return "Double.compare(" + left + ", " + right + ") != 0";
+            case FLOAT:
+                return "Float.compare(" + left + ", " + right + ") != 0";
+            case INT:
+            case LONG:
+            case SHORT:
+            case CHAR:
+            case BYTE:
+            case BOOLEAN:
+                return left + " != " + right;
+            default:
+                if (isValueType(field.type))
+                    return "candidateEquals(" + left + ", " + right + ")";
+                return "candidate(" + left + ", " + right + ")";
+        }
+    }
+
+    /**
+     * Strings and primitive wrappers are compared by value, everything else by reference first.
+     */
+    private boolean isValueType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED)
+            return false;
+        String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        switch (name) {
+            case "java.lang.String":
+            case "java.lang.Integer":
+            case "java.lang.Long":
+            case "java.lang.Short":
+            case "java.lang.Double":
+            case "java.lang.Float":
+            case "java.lang.Boolean":
+            case "java.lang.Character":
+            case "java.lang.Byte":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class FieldAccess {
+
+        final String declaringClass;
+        final String name;
+        final TypeMirror type;
+        final String cast;
+        final String member;
+
+        FieldAccess(String declaringClass, String name, TypeMirror type, String cast, String member) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+            this.type = type;
+            this.cast = cast;
+            this.member = member;
+        }
+
+        String read(String bean) {
+            return (cast == null ? bean : "((" + cast + ") " + bean + ")") + "." + member;
+        }
+    }
+}
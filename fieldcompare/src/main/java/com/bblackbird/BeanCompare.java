@@ -0,0 +1,22 @@
+package com.bblackbird;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+
+public class BeanCompare extends FieldCompare {
+
+    Logger logger = LoggerFactory.getLogger(BeanCompare.class);
+
+    protected void log(DiffPath path, Field f, Object left, Object right) {
+        //System.out.println("Field=" + getFullName(path, f) + " Left=" + left + ", Right=" + right);
+        logger.info("Field=" + getFullName(path, f) + " Left=" + left + ", Right=" + right);
+    }
+
+    protected void log(DiffPath path, Field f, Object left, Object right, Exception e) {
+        //System.err.println("Field=" + getFullName(path, f) + " Left=" + left + ", Right=" + right + ", Exception=" + e);
+        logger.info("Field=" + getFullName(path, f) + " Left=" + left + ", Right=" + right + ", Exception=" + e);
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.bblackbird;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Reflection metadata of a single class, held by {@link ClassMetadataCache}:
+ * declared fields with their accessors, generic element types of declared fields, compare plans per field filter,
+ * and compile time generated comparator.
+ *
+ * Declared fields and accessors are resolved once on creation, everything else on first use.
+ * For records, component fields come first in component order and are read through component accessor methods.
+ */
+public final class ClassMetadata {
+
+    private static final Field[] NO_FIELDS = {};
+    private static final FieldAccessor[] NO_ACCESSORS = {};
+    private static final int MAX_PLANS = 32;
+    private static final Object UNRESOLVED = new Object();
+
+    private final Class<?> type;
+    private final Field[] declaredFields;
+    private final FieldAccessor[] declaredAccessors;
+    /**
+     * Element types of declared fields, {@link #UNRESOLVED} until first use.
+     */
+    private final Object[] elementTypes;
+    private final Map<Predicate<Field>, ComparePlan> comparePlans = new ConcurrentHashMap<>(4);
+    private volatile Boolean simpleType;
+    private volatile Optional<CompiledComparator> compiledComparator;
+
+    ClassMetadata(Class<?> type) {
+        this.type = type;
+        Field[] fields = type.getDeclaredFields();
+        this.declaredFields = fields.length == 0 ? NO_FIELDS : fields;
+        this.declaredAccessors = fields.length == 0 ? NO_ACCESSORS : new FieldAccessor[fields.length];
+        int componentCount = type.isRecord() ? initRecordComponents(type.getRecordComponents()) : 0;
+        for (int i = componentCount; i < fields.length; i++) {
+            declaredAccessors[i] = FieldAccessor.of(fields[i]);
+        }
+        this.elementTypes = new Object[fields.length];
+        Arrays.fill(elementTypes, UNRESOLVED);
+    }
+
+    /**
+     * Moves record component fields to the front in component order, with accessors reading through component accessor methods.
+     * Returns number of components.
+     */
+    private int initRecordComponents(RecordComponent[] components) {
+        for (int i = 0; i < components.length; i++) {
+            for (int j = i; j < declaredFields.length; j++) {
+                Field field = declaredFields[j];
+                if (!Modifier.isStatic(field.getModifiers()) && field.getName().equals(components[i].getName())) {
+                    declaredFields[j] = declaredFields[i];
+                    declaredFields[i] = field;
+                    break;
+                }
+            }
+            declaredAccessors[i] = FieldAccessor.of(components[i], declaredFields[i]);
+        }
+        return components.length;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Same as {@link Class#getDeclaredFields()}, without defensive copying. Returned array must not be modified.
+     */
+    Field[] getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /**
+     * Accessors of {@link #getDeclaredFields()}, in the same order. Returned array must not be modified.
+     */
+    FieldAccessor[] getDeclaredAccessors() {
+        return declaredAccessors;
+    }
+
+    public int indexOf(Field field) {
+        for (int i = 0; i < declaredFields.length; i++) {
+            if (declaredFields[i] == field)
+                return i;
+        }
+        for (int i = 0; i < declaredFields.length; i++) {
+            if (declaredFields[i].equals(field))
+                return i;
+        }
+        return -1;
+    }
+
+    public FieldAccessor getAccessor(Field field) {
+        int index = indexOf(field);
+        return index >= 0 ? declaredAccessors[index] : FieldAccessor.of(field);
+    }
+
+    /**
+     * First type argument of declared field generic type, same as {@link FieldCompare#getCollectionType(Field)}.
+     */
+    public Class<?> getElementType(Field field) {
+        int index = indexOf(field);
+        Object elementType = index >= 0 ? elementTypes[index] : UNRESOLVED;
+        if (elementType != UNRESOLVED)
+            return (Class<?>) elementType;
+        ParameterizedType paramType = (ParameterizedType) field.getGenericType();
+        Class<?> resolved = (Class<?>) paramType.getActualTypeArguments()[0];
+        if (index >= 0)
+            elementTypes[index] = resolved;
+        return resolved;
+    }
+
+    /**
+     * Compare plan for the field filter, built once per filter instance.
+     * Plans are kept per filter instance, so filters should be reused across calls rather than created per call,
+     * those created per call are dropped once there are more than a few of them.
+     */
+    public ComparePlan getComparePlan(Predicate<Field> fieldFilter) {
+        ComparePlan plan = comparePlans.get(fieldFilter);
+        if (plan != null)
+            return plan;
+        if (comparePlans.size() >= MAX_PLANS)
+            comparePlans.clear();
+        return comparePlans.computeIfAbsent(fieldFilter, ff -> ComparePlan.of(type, ff));
+    }
+
+    public CompiledComparator getCompiledComparator() {
+        Optional<CompiledComparator> comparator = compiledComparator;
+        if (comparator == null) {
+            comparator = Optional.ofNullable(CompiledComparator.load(type));
+            compiledComparator = comparator;
+        }
+        return comparator.orElse(null);
+    }
+
+    Boolean getSimpleType() {
+        return simpleType;
+    }
+
+    void setSimpleType(Boolean simpleType) {
+        this.simpleType = simpleType;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassMetadata{" +
+                "type=" + type.getName() +
+                ", fields=" + declaredFields.length +
+                ", plans=" + comparePlans.size() +
+                '}';
+    }
+}
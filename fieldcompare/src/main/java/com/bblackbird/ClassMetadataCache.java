@@ -0,0 +1,180 @@
+package com.bblackbird;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of {@link ClassMetadata} built on {@link ClassValue}, so metadata is stored with the class itself
+ * and doesn't prevent class (and its class loader) from being unloaded.
+ *
+ * Metadata is computed at most once per class, even under concurrent first use: {@link ClassValue} only installs
+ * a lightweight holder, and the holder computes metadata under its own lock.
+ * Cache size can be bounded with {@link #setMaximumSize(int)}, in which case the oldest computed entries are evicted first.
+ * Hit, miss and eviction counts are kept for monitoring, in {@link LongAdder}s, whose cells are striped across threads,
+ * so counting hits of lookups made for every compared value doesn't contend in parallel mode.
+ */
+public final class ClassMetadataCache {
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final ClassValue<Holder> values = new ClassValue<>() {
+        @Override
+        protected Holder computeValue(Class<?> type) {
+            return new Holder();
+        }
+    };
+
+    /**
+     * Computed entries in insertion order, weakly referencing their classes.
+     */
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private final ReferenceQueue<Class<?>> unloaded = new ReferenceQueue<>();
+    private volatile int maximumSize;
+    private int size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ClassMetadataCache() {
+        this(UNBOUNDED);
+    }
+
+    public ClassMetadataCache(int maximumSize) {
+        setMaximumSize(maximumSize);
+    }
+
+    public ClassMetadata get(Class<?> type) {
+        Holder holder = values.get(type);
+        ClassMetadata metadata = holder.metadata;
+        if (metadata != null) {
+            hits.increment();
+            return metadata;
+        }
+        synchronized (holder) {
+            metadata = holder.metadata;
+            if (metadata != null) {
+                hits.increment();
+                return metadata;
+            }
+            misses.increment();
+            metadata = new ClassMetadata(type);
+            holder.metadata = metadata;
+        }
+        added(type);
+        return metadata;
+    }
+
+    /**
+     * Removes metadata of the class, i.e. after it was redefined.
+     */
+    public synchronized void invalidate(Class<?> type) {
+        entries.removeIf(e -> {
+            if (e.get() != type)
+                return false;
+            e.removed = true;
+            size--;
+            return true;
+        });
+        values.remove(type);
+    }
+
+    public synchronized void clear() {
+        for (Entry e : entries) {
+            Class<?> type = e.get();
+            if (type != null)
+                values.remove(type);
+        }
+        entries.clear();
+        size = 0;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public synchronized void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        this.maximumSize = maximumSize;
+        evict();
+    }
+
+    public synchronized int size() {
+        drainUnloaded();
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private synchronized void added(Class<?> type) {
+        entries.addLast(new Entry(type, unloaded));
+        size++;
+        evict();
+    }
+
+    private void evict() {
+        drainUnloaded();
+        while (size > maximumSize) {
+            Entry e = entries.pollFirst();
+            if (e.removed)
+                continue;
+            e.removed = true;
+            size--;
+            Class<?> type = e.get();
+            if (type != null) {
+                values.remove(type);
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Accounts for classes that were unloaded along with their metadata.
+     */
+    private void drainUnloaded() {
+        for (Entry e = (Entry) unloaded.poll(); e != null; e = (Entry) unloaded.poll()) {
+            if (!e.removed) {
+                e.removed = true;
+                size--;
+                entries.remove(e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClassMetadataCache{" +
+                "size=" + size() +
+                ", maximumSize=" + maximumSize +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private static final class Holder {
+        volatile ClassMetadata metadata;
+    }
+
+    private static final class Entry extends WeakReference<Class<?>> {
+        boolean removed;
+
+        Entry(Class<?> type, ReferenceQueue<Class<?>> queue) {
+            super(type, queue);
+        }
+    }
+}
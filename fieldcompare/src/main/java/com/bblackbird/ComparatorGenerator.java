@@ -0,0 +1,210 @@
+package com.bblackbird;
+
+import com.bblackbird.ComparePlan.Category;
+import com.bblackbird.ComparePlan.FieldPlan;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Generates {@link GeneratedComparator} for a {@link ComparePlan} and loads it as hidden class,
+ * nestmate of the compared bean class, so that even private fields can be read directly.
+ * Fields that are not directly accessible from bean class nest (i.e. private fields of super classes from other nests)
+ * are read through the plan's {@link FieldAccessor}.
+ */
+final class ComparatorGenerator {
+
+    private static final String BASE = Type.getInternalName(GeneratedComparator.class);
+    private static final String FIELD_PLAN = Type.getInternalName(FieldPlan.class);
+    private static final String FIELD_PLANS = "[" + Type.getDescriptor(FieldPlan.class);
+    private static final String ACCESSOR = Type.getInternalName(FieldAccessor.class);
+    private static final String OBJECT = Type.getInternalName(Object.class);
+
+    private static final int THIS = 0;
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int FROM = 3;
+    private static final int LEFT_VALUE = 4;
+    private static final int RIGHT_VALUE = 5;
+
+    private ComparatorGenerator() {
+    }
+
+    /**
+     * Returns generated comparator for the plan, or null if it can't be defined for the plan's class,
+     * i.e. class is in a module not opened for private access or in a different class loader.
+     */
+    static GeneratedComparator generate(ComparePlan plan) {
+        Class<?> type = plan.getType();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            byte[] bytes = generateBytes(type, plan.fields);
+            MethodHandles.Lookup hidden = lookup.defineHiddenClass(bytes, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+            MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class, FieldPlan[].class));
+            return (GeneratedComparator) constructor.invoke(plan.fields);
+        } catch (VirtualMachineError e) {
+            throw e;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    static byte[] generateBytes(Class<?> type, FieldPlan[] fields) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // Only Object typed values are live across branches.
+                return OBJECT;
+            }
+        };
+        String name = Type.getInternalName(type) + "$$Comparator";
+        cw.visit(V17, ACC_FINAL | ACC_SUPER, name, null, BASE, null);
+
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "(" + FIELD_PLANS + ")V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, THIS);
+        init.visitVarInsn(ALOAD, 1);
+        init.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", "(" + FIELD_PLANS + ")V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "nextCandidate", "(Ljava/lang/Object;Ljava/lang/Object;I)I", null, null);
+        mv.visitCode();
+        Label end = new Label();
+        if (fields.length > 0) {
+            Label[] checks = new Label[fields.length];
+            Label[] candidates = new Label[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                checks[i] = new Label();
+                candidates[i] = new Label();
+            }
+            mv.visitVarInsn(ILOAD, FROM);
+            mv.visitTableSwitchInsn(0, fields.length - 1, end, checks);
+            for (int i = 0; i < fields.length; i++) {
+                mv.visitLabel(checks[i]);
+                check(mv, type, fields, i, candidates[i]);
+            }
+            mv.visitJumpInsn(GOTO, end);
+            for (int i = 0; i < fields.length; i++) {
+                mv.visitLabel(candidates[i]);
+                mv.visitLdcInsn(i);
+                mv.visitInsn(IRETURN);
+            }
+        }
+        mv.visitLabel(end);
+        mv.visitInsn(ICONST_M1);
+        mv.visitInsn(IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Emits check of a single field, jumping to candidate label if field has to be compared, or falling through otherwise.
+     */
+    private static void check(MethodVisitor mv, Class<?> type, FieldPlan[] fields, int index, Label candidate) {
+        FieldPlan fp = fields[index];
+        Class<?> fieldType = fp.field.getType();
+        if (fieldType.isPrimitive()) {
+            read(mv, type, fields, index, LEFT);
+            read(mv, type, fields, index, RIGHT);
+            if (fieldType == long.class) {
+                mv.visitInsn(LCMP);
+                mv.visitJumpInsn(IFNE, candidate);
+            } else if (fieldType == double.class) {
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "compare", "(DD)I", false);
+                mv.visitJumpInsn(IFNE, candidate);
+            } else if (fieldType == float.class) {
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "compare", "(FF)I", false);
+                mv.visitJumpInsn(IFNE, candidate);
+            } else {
+                mv.visitJumpInsn(IF_ICMPNE, candidate);
+            }
+            return;
+        }
+
+        read(mv, type, fields, index, LEFT);
+        mv.visitVarInsn(ASTORE, LEFT_VALUE);
+        read(mv, type, fields, index, RIGHT);
+        mv.visitVarInsn(ASTORE, RIGHT_VALUE);
+
+        // Nulls are always handed over to the null check.
+        mv.visitVarInsn(ALOAD, LEFT_VALUE);
+        mv.visitJumpInsn(IFNULL, candidate);
+        mv.visitVarInsn(ALOAD, RIGHT_VALUE);
+        mv.visitJumpInsn(IFNULL, candidate);
+        if (fp.category == Category.STRING || fp.category == Category.WRAPPER) {
+            mv.visitVarInsn(ALOAD, LEFT_VALUE);
+            mv.visitVarInsn(ALOAD, RIGHT_VALUE);
+            mv.visitMethodInsn(INVOKEVIRTUAL, OBJECT, "equals", "(Ljava/lang/Object;)Z", false);
+            mv.visitJumpInsn(IFEQ, candidate);
+        } else {
+            mv.visitVarInsn(ALOAD, LEFT_VALUE);
+            mv.visitVarInsn(ALOAD, RIGHT_VALUE);
+            mv.visitJumpInsn(IF_ACMPNE, candidate);
+        }
+    }
+
+    /**
+     * Pushes field value of left or right object, either directly or through the plan's accessor.
+     * Record components are read by calling component accessor method, same as their plan's accessor does.
+     */
+    private static void read(MethodVisitor mv, Class<?> type, FieldPlan[] fields, int index, int target) {
+        Field field = fields[index].field;
+        Class<?> fieldType = field.getType();
+        if (type.isRecord() && field.getDeclaringClass() == type && !Modifier.isStatic(field.getModifiers())) {
+            String owner = Type.getInternalName(type);
+            mv.visitVarInsn(ALOAD, target);
+            mv.visitTypeInsn(CHECKCAST, owner);
+            mv.visitMethodInsn(INVOKEVIRTUAL, owner, field.getName(), "()" + Type.getDescriptor(fieldType), false);
+            return;
+        }
+        if (isDirectlyAccessible(type, field)) {
+            String owner = Type.getInternalName(field.getDeclaringClass());
+            mv.visitVarInsn(ALOAD, target);
+            mv.visitTypeInsn(CHECKCAST, owner);
+            mv.visitFieldInsn(GETFIELD, owner, field.getName(), Type.getDescriptor(fieldType));
+            return;
+        }
+        mv.visitVarInsn(ALOAD, THIS);
+        mv.visitFieldInsn(GETFIELD, BASE, "fields", FIELD_PLANS);
+        mv.visitLdcInsn(index);
+        mv.visitInsn(AALOAD);
+        mv.visitFieldInsn(GETFIELD, FIELD_PLAN, "accessor", Type.getDescriptor(FieldAccessor.class));
+        mv.visitVarInsn(ALOAD, target);
+        if (fieldType.isPrimitive()) {
+            String getter = "get" + Character.toUpperCase(fieldType.getName().charAt(0)) + fieldType.getName().substring(1);
+            mv.visitMethodInsn(INVOKEVIRTUAL, ACCESSOR, getter, "(Ljava/lang/Object;)" + Type.getDescriptor(fieldType), false);
+        } else {
+            mv.visitMethodInsn(INVOKEVIRTUAL, ACCESSOR, "get", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+        }
+    }
+
+    /**
+     * Generated class is a nestmate of the bean class, so it can read any field of the nest
+     * and non private fields of classes in the same runtime package.
+     */
+    private static boolean isDirectlyAccessible(Class<?> type, Field field) {
+        if (Modifier.isStatic(field.getModifiers()))
+            return false;
+        Class<?> owner = field.getDeclaringClass();
+        if (type.isNestmateOf(owner))
+            return true;
+        return !Modifier.isPrivate(field.getModifiers()) && !Modifier.isPrivate(owner.getModifiers())
+                && owner.getClassLoader() == type.getClassLoader()
+                && Objects.equals(owner.getPackageName(), type.getPackageName());
+    }
+}
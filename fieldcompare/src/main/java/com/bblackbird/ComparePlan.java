@@ -0,0 +1,225 @@
+package com.bblackbird;
+
+import com.google.common.primitives.Primitives;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Immutable comparison plan for a class and field filter.
+ * It holds flattened list of fields (going up the class hierarchy), with precomputed category per field,
+ * collection element type and resolved {@link FieldAccessor}, so traversal of an object is plain array iteration.
+ *
+ * Category is computed from declared field type following the same dispatch order as
+ * {@link FieldCompare#compareFields()}. Where declared type alone is not enough, i.e. Object or interface
+ * fields that may hold strings, primitive wrappers or enums, category is {@link Category#DYNAMIC}
+ * and dispatch is done on the runtime value as before.
+ */
+public final class ComparePlan {
+
+    public enum Category {
+        INT, LONG, SHORT, DOUBLE, FLOAT, BOOLEAN, CHAR, BYTE,
+        WRAPPER, STRING, ENUM, BIG_DECIMAL,
+        LIST, MAP, SET, COLLECTION, ARRAY,
+        OBJECT, DYNAMIC
+    }
+
+    public static final class FieldPlan {
+
+        public final Field field;
+        public final FieldAccessor accessor;
+        public final Category category;
+        public final Class<?> elementType;
+
+        FieldPlan(Field field, FieldAccessor accessor, Category category, Class<?> elementType) {
+            this.field = field;
+            this.accessor = accessor;
+            this.category = category;
+            this.elementType = elementType;
+        }
+
+        public String getName() {
+            return field.getName();
+        }
+
+        @Override
+        public String toString() {
+            return "FieldPlan{" +
+                    "field=" + field.getName() +
+                    ", category=" + category +
+                    ", elementType=" + elementType +
+                    '}';
+        }
+    }
+
+    private static final FieldPlan[] NO_FIELDS = {};
+
+    private final Class<?> type;
+    final FieldPlan[] fields;
+    private volatile GeneratedComparator generatedComparator;
+    private volatile boolean generationFailed;
+    private volatile GeneratedComparator compiledComparator;
+    private volatile boolean compiledMissing;
+
+    private ComparePlan(Class<?> type, FieldPlan[] fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    public static ComparePlan of(Class<?> type, Predicate<Field> fieldFilter) {
+        List<FieldPlan> plans = new ArrayList<>();
+        FieldCompare.getDeclaredAccessors(type, a -> plans.add(fieldPlan(a)), fieldFilter);
+        return new ComparePlan(type, plans.isEmpty() ? NO_FIELDS : plans.toArray(NO_FIELDS));
+    }
+
+    private static FieldPlan fieldPlan(FieldAccessor accessor) {
+        Field field = accessor.getField();
+        Category category = category(field.getType());
+        return new FieldPlan(field, accessor, category, elementType(field, category));
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public List<FieldPlan> getFields() {
+        return Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * Runtime generated comparator for this plan, created on first use. Returns null if it can't be generated for the class.
+     */
+    public GeneratedComparator getGeneratedComparator() {
+        GeneratedComparator comparator = generatedComparator;
+        if (comparator == null && !generationFailed) {
+            synchronized (this) {
+                comparator = generatedComparator;
+                if (comparator == null && !generationFailed) {
+                    comparator = ComparatorGenerator.generate(this);
+                    generatedComparator = comparator;
+                    generationFailed = comparator == null;
+                }
+            }
+        }
+        return comparator;
+    }
+
+    /**
+     * Compile time generated comparator for this plan, see {@link GenerateComparator}. Returns null if there is none for the class.
+     */
+    public GeneratedComparator getCompiledComparator() {
+        GeneratedComparator comparator = compiledComparator;
+        if (comparator == null && !compiledMissing) {
+            synchronized (this) {
+                comparator = compiledComparator;
+                if (comparator == null && !compiledMissing) {
+                    CompiledComparator compiled = CompiledComparator.find(type);
+                    comparator = compiled != null ? new CompiledComparatorAdapter(this, compiled) : null;
+                    compiledComparator = comparator;
+                    compiledMissing = comparator == null;
+                }
+            }
+        }
+        return comparator;
+    }
+
+    /**
+     * Comparator to be used by given engine, or null if fields should be compared by reflection.
+     */
+    public GeneratedComparator getComparator(FieldCompare.Engine engine) {
+        switch (engine) {
+            case COMPILED:
+                return getCompiledComparator();
+            case GENERATED:
+                GeneratedComparator compiled = getCompiledComparator();
+                return compiled != null ? compiled : getGeneratedComparator();
+            default:
+                return null;
+        }
+    }
+
+    public static Category category(Class<?> type) {
+        if (type.isPrimitive()) {
+            if (type == int.class) return Category.INT;
+            if (type == long.class) return Category.LONG;
+            if (type == short.class) return Category.SHORT;
+            if (type == double.class) return Category.DOUBLE;
+            if (type == float.class) return Category.FLOAT;
+            if (type == boolean.class) return Category.BOOLEAN;
+            if (type == char.class) return Category.CHAR;
+            return Category.BYTE;
+        }
+        if (type == String.class)
+            return Category.STRING;
+        if (Primitives.isWrapperType(type))
+            return Category.WRAPPER;
+        if (type.isEnum() || type == Enum.class)
+            return Category.ENUM;
+        if (isDynamic(type))
+            return Category.DYNAMIC;
+        if (type.isAssignableFrom(BigDecimal.class))
+            return Category.BIG_DECIMAL;
+        if (type.isAssignableFrom(List.class))
+            return Category.LIST;
+        if (type.isAssignableFrom(Map.class))
+            return Category.MAP;
+        if (type.isAssignableFrom(Set.class))
+            return Category.SET;
+        if (type.isAssignableFrom(Collection.class))
+            return Category.COLLECTION;
+        if (type.isArray())
+            return Category.ARRAY;
+        return Category.OBJECT;
+    }
+
+    /**
+     * Declared types which could hold String, primitive wrapper or enum value at runtime, so must be resolved per value.
+     */
+    private static boolean isDynamic(Class<?> type) {
+        if (type == Object.class || type.isAssignableFrom(Integer.class) || type.isAssignableFrom(Boolean.class)
+                || type.isAssignableFrom(Character.class) || type.isAssignableFrom(String.class))
+            return true;
+        return type.isInterface() && !type.isAssignableFrom(List.class) && !type.isAssignableFrom(Map.class)
+                && !type.isAssignableFrom(Set.class);
+    }
+
+    /**
+     * Same as {@link FieldCompare#getCollectionType(Field)} and {@link FieldCompare#getArrayType(Field)},
+     * but returns null if element type can't be resolved to a class i.e. for raw or wildcard types.
+     */
+    private static Class<?> elementType(Field field, Category category) {
+        switch (category) {
+            case LIST:
+            case MAP:
+            case SET:
+            case COLLECTION:
+                Type genericType = field.getGenericType();
+                if (genericType instanceof ParameterizedType) {
+                    Type typeArg = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                    if (typeArg instanceof Class<?>)
+                        return (Class<?>) typeArg;
+                }
+                return null;
+            case ARRAY:
+                return field.getType().getComponentType();
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ComparePlan{" +
+                "type=" + type.getName() +
+                ", fields=" + Arrays.toString(fields) +
+                '}';
+    }
+}
@@ -0,0 +1,133 @@
+package com.bblackbird;
+
+import java.lang.reflect.Field;
+
+/**
+ * Base class for comparators generated at compile time for classes annotated with {@link GenerateComparator}.
+ *
+ * Same as {@link GeneratedComparator}, it only answers which fields may produce differences and reads their values,
+ * while diffs are produced by {@link FieldCompare} as in reflection mode.
+ * Fields are addressed by generated index, see {@link #indexOf(Field)}, since compared fields depend on field filter.
+ * Fields without direct access from the bean package are read through their getters, or record accessors, so every field is covered.
+ */
+public abstract class CompiledComparator {
+
+    /**
+     * Suffix appended to binary simple name of the bean class, with '$' replaced by '_', to form comparator class name.
+     */
+    public static final String SUFFIX = "_FieldComparator";
+
+    private final Class<?> type;
+    private final String[] declaringClassNames;
+    private final String[] fieldNames;
+
+    protected CompiledComparator(Class<?> type, String[] declaringClassNames, String[] fieldNames) {
+        this.type = type;
+        this.declaringClassNames = declaringClassNames;
+        this.fieldNames = fieldNames;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public int size() {
+        return fieldNames.length;
+    }
+
+    /**
+     * Returns generated index of the field, or -1 if field is not covered by this comparator.
+     */
+    public int indexOf(Field field) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i].equals(field.getName()) && declaringClassNames[i].equals(field.getDeclaringClass().getName()))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if field may differ between two beans: primitives that differ, references that are not the same instance
+     * (or are null), and for strings and wrappers values that are not equal.
+     */
+    public abstract boolean isCandidate(int field, Object left, Object right);
+
+    /**
+     * Reads field value, primitive values are boxed. Primitive fields are read without boxing through typed getters,
+     * i.e. {@link #getLong(int, Object)}, which generated comparators override for fields of the matching type only.
+     */
+    public abstract Object getValue(int field, Object bean);
+
+    public int getInt(int field, Object bean) {
+        throw notOfType(field, int.class);
+    }
+
+    public long getLong(int field, Object bean) {
+        throw notOfType(field, long.class);
+    }
+
+    public short getShort(int field, Object bean) {
+        throw notOfType(field, short.class);
+    }
+
+    public double getDouble(int field, Object bean) {
+        throw notOfType(field, double.class);
+    }
+
+    public float getFloat(int field, Object bean) {
+        throw notOfType(field, float.class);
+    }
+
+    public boolean getBoolean(int field, Object bean) {
+        throw notOfType(field, boolean.class);
+    }
+
+    public char getChar(int field, Object bean) {
+        throw notOfType(field, char.class);
+    }
+
+    public byte getByte(int field, Object bean) {
+        throw notOfType(field, byte.class);
+    }
+
+    private IllegalArgumentException notOfType(int field, Class<?> type) {
+        String name = field >= 0 && field < fieldNames.length ? fieldNames[field] : String.valueOf(field);
+        return new IllegalArgumentException("Field " + name + " of " + this.type.getName() + " is not of type " + type);
+    }
+
+    protected static boolean candidate(Object left, Object right) {
+        return left == null || left != right;
+    }
+
+    protected static boolean candidateEquals(Object left, Object right) {
+        return left == null || right == null || !left.equals(right);
+    }
+
+    public static String comparatorName(Class<?> type) {
+        String name = type.getName();
+        String packageName = type.getPackageName();
+        String simpleName = packageName.isEmpty() ? name : name.substring(packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + simpleName.replace('$', '_') + SUFFIX;
+    }
+
+    /**
+     * Returns compiled comparator for the class, or null if none was generated.
+     */
+    public static CompiledComparator find(Class<?> type) {
+        return FieldCompare.getMetadataCache().get(type).getCompiledComparator();
+    }
+
+    static CompiledComparator load(Class<?> type) {
+        if (type.isArray() || type.isPrimitive())
+            return null;
+        try {
+            Class<?> clazz = Class.forName(comparatorName(type), true, type.getClassLoader());
+            if (!CompiledComparator.class.isAssignableFrom(clazz))
+                return null;
+            CompiledComparator comparator = (CompiledComparator) clazz.getConstructor().newInstance();
+            return comparator.getType() == type ? comparator : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.bblackbird;
+
+/**
+ * Adapts {@link CompiledComparator} to fields of a {@link ComparePlan}.
+ * Planned fields not covered by compiled comparator, i.e. static fields, are always candidates.
+ */
+final class CompiledComparatorAdapter extends GeneratedComparator {
+
+    private final CompiledComparator compiled;
+    private final int[] indexes;
+    private final FieldAccessor[] accessors;
+
+    CompiledComparatorAdapter(ComparePlan plan, CompiledComparator compiled) {
+        super(plan.fields);
+        this.compiled = compiled;
+        this.indexes = new int[fields.length];
+        this.accessors = new FieldAccessor[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            indexes[i] = compiled.indexOf(fields[i].field);
+            accessors[i] = indexes[i] < 0 ? fields[i].accessor : new CompiledAccessor(fields[i], compiled, indexes[i]);
+        }
+    }
+
+    @Override
+    public int nextCandidate(Object left, Object right, int from) {
+        for (int i = from; i < indexes.length; i++) {
+            int index = indexes[i];
+            if (index < 0 || compiled.isCandidate(index, left, right))
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public FieldAccessor getAccessor(int index) {
+        return accessors[index];
+    }
+
+    /**
+     * Accessor reading one field through compiled comparator, primitive fields through its typed getters.
+     */
+    static final class CompiledAccessor extends FieldAccessor {
+
+        private final CompiledComparator compiled;
+        private final int index;
+
+        CompiledAccessor(ComparePlan.FieldPlan fp, CompiledComparator compiled, int index) {
+            super(fp.field);
+            this.compiled = compiled;
+            this.index = index;
+        }
+
+        @Override
+        public Object get(Object target) {
+            return compiled.getValue(index, target);
+        }
+
+        @Override
+        public int getInt(Object target) {
+            return compiled.getInt(index, target);
+        }
+
+        @Override
+        public long getLong(Object target) {
+            return compiled.getLong(index, target);
+        }
+
+        @Override
+        public short getShort(Object target) {
+            return compiled.getShort(index, target);
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            return compiled.getDouble(index, target);
+        }
+
+        @Override
+        public float getFloat(Object target) {
+            return compiled.getFloat(index, target);
+        }
+
+        @Override
+        public boolean getBoolean(Object target) {
+            return compiled.getBoolean(index, target);
+        }
+
+        @Override
+        public char getChar(Object target) {
+            return compiled.getChar(index, target);
+        }
+
+        @Override
+        public byte getByte(Object target) {
+            return compiled.getByte(index, target);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.bblackbird;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Objects;
+
+public class Diff {
+
+    /**
+     * Left and right value of a difference reported for a whole subtree below maximum depth, see {@link DiffBudget}.
+     */
+    public static final String SUBTREE_DIFFERS = "SUBTREE_DIFFERS";
+
+    /**
+     * Left value of the difference reported last when comparison stopped on budget, see {@link DiffBudget}.
+     * Its right value tells which limit was reached.
+     */
+    public static final String TRUNCATED = "TRUNCATED";
+
+    private String fieldName;
+    private final DiffPath path;
+    public final Type type;
+    public final Object left;
+    public final Object right;
+
+    public Diff(String fieldName, Type type, Object oldValue, Object newValue) {
+        this.fieldName = fieldName;
+        this.path = null;
+        this.type = type;
+        this.left = oldValue;
+        this.right = newValue;
+    }
+
+    /**
+     * Diff with field name rendered from the path on first use.
+     */
+    public Diff(DiffPath path, Type type, Object oldValue, Object newValue) {
+        this.path = path;
+        this.type = type;
+        this.left = oldValue;
+        this.right = newValue;
+    }
+
+    public String getFieldName() {
+        String name = fieldName;
+        if (name == null && path != null) {
+            name = path.toString();
+            fieldName = name;
+        }
+        return name;
+    }
+
+    /**
+     * Path of the difference, or null if diff was created with field name.
+     */
+    public DiffPath getPath() {
+        return path;
+    }
+
+    /**
+     * True if this is the marker of comparison stopped on budget.
+     */
+    public boolean isTruncation() {
+        return type == null && TRUNCATED.equals(left);
+    }
+
+    /**
+     * True if differences end with the marker of comparison stopped on budget.
+     */
+    public static boolean isTruncated(List<Diff> diffs) {
+        return !diffs.isEmpty() && diffs.get(diffs.size() - 1).isTruncation();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Diff diff = (Diff) o;
+        return Objects.equals(getFieldName(), diff.getFieldName()) &&
+                Objects.equals(type, diff.type) &&
+                Objects.equals(left, diff.left) &&
+                Objects.equals(right, diff.right);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getFieldName(), type, left, right);
+    }
+
+    @Override
+    public String toString() {
+        return "Diff{" +
+                "fieldName='" + getFieldName() + '\'' +
+                ", type=" + type +
+                ", left=" + left +
+                ", right=" + right +
+                '}';
+    }
+}
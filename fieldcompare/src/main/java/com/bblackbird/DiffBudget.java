@@ -0,0 +1,108 @@
+package com.bblackbird;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Limits on a single comparison, so that badly broken input can't take unbounded time or memory.
+ *
+ * maxDiffs - maximum number of differences reported.
+ * maxDepth - maximum nesting depth of objects compared field by field, top level object being at depth 0.
+ * Deeper objects that differ are reported as a single {@link Diff#SUBTREE_DIFFERS} difference.
+ * maxNodes - maximum number of objects, fields and elements visited.
+ * timeout - wall clock time a comparison may take, counted from its start.
+ * cancellation - token telling comparison to stop, i.e. when the request it runs for is abandoned.
+ *
+ * When maximum number of differences or nodes is reached, traversal stops and a {@link Diff#TRUNCATED} difference
+ * is reported last, so callers know the result is incomplete.
+ * Traversal checks thread interruption every few nodes visited, with any budget, and timeout and cancellation token when set,
+ * and stops the same way, returning differences found so far. Interrupt status of the thread is kept.
+ * Equality checks, which can't return a partial result, ignore interruption.
+ */
+public final class DiffBudget {
+
+    public static final DiffBudget UNLIMITED = new DiffBudget(Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, null);
+
+    private final int maxDiffs;
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long timeoutNanos;
+    private final BooleanSupplier cancellation;
+
+    private DiffBudget(int maxDiffs, int maxDepth, long maxNodes, long timeoutNanos, BooleanSupplier cancellation) {
+        if (maxDiffs < 0 || maxDepth < 0 || maxNodes < 0 || timeoutNanos < 0)
+            throw new IllegalArgumentException("Budget limits must not be negative");
+        this.maxDiffs = maxDiffs;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.timeoutNanos = timeoutNanos;
+        this.cancellation = cancellation;
+    }
+
+    public DiffBudget withMaxDiffs(int maxDiffs) {
+        return new DiffBudget(maxDiffs, maxDepth, maxNodes, timeoutNanos, cancellation);
+    }
+
+    public DiffBudget withMaxDepth(int maxDepth) {
+        return new DiffBudget(maxDiffs, maxDepth, maxNodes, timeoutNanos, cancellation);
+    }
+
+    public DiffBudget withMaxNodes(long maxNodes) {
+        return new DiffBudget(maxDiffs, maxDepth, maxNodes, timeoutNanos, cancellation);
+    }
+
+    public DiffBudget withTimeout(Duration timeout) {
+        long nanos;
+        try {
+            nanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            nanos = Long.MAX_VALUE;
+        }
+        return new DiffBudget(maxDiffs, maxDepth, maxNodes, nanos, cancellation);
+    }
+
+    /**
+     * Comparison stops once the token returns true.
+     */
+    public DiffBudget withCancellation(BooleanSupplier cancellation) {
+        return new DiffBudget(maxDiffs, maxDepth, maxNodes, timeoutNanos, Objects.requireNonNull(cancellation));
+    }
+
+    public int getMaxDiffs() {
+        return maxDiffs;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Timeout in nanoseconds, Long.MAX_VALUE if there is none.
+     */
+    public long getTimeoutNanos() {
+        return timeoutNanos;
+    }
+
+    public BooleanSupplier getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * True if comparison has to check time or cancellation token while running. Interruption is checked either way.
+     */
+    public boolean isCancellable() {
+        return timeoutNanos != Long.MAX_VALUE || cancellation != null;
+    }
+
+    @Override
+    public String toString() {
+        return "DiffBudget{maxDiffs=" + maxDiffs + ", maxDepth=" + maxDepth + ", maxNodes=" + maxNodes
+                + (timeoutNanos != Long.MAX_VALUE ? ", timeout=" + Duration.ofNanos(timeoutNanos) : "")
+                + (cancellation != null ? ", cancellable" : "") + '}';
+    }
+}
@@ -0,0 +1,358 @@
+package com.bblackbird;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per traversal wrapper of {@link DiffSink}, passed down to every compare method.
+ * Counts differences passed to the sink, and remembers when the sink asked to stop,
+ * so traversal can check {@link #isStopped()} and end early. Not thread safe, one instance is used by one traversal.
+ *
+ * Also keeps {@link DiffBudget} of the traversal: nodes visited and depth of compared objects are counted here,
+ * and once differences or nodes budget runs out, a {@link Diff#TRUNCATED} difference is passed to the sink and traversal stops.
+ * Timeout, cancellation token and interruption are checked every {@link #CHECK_INTERVAL} nodes, timeout is counted from collector creation.
+ * Interruption is checked whatever the budget, except by collectors of equality checks, which have no partial result,
+ * and by probes and parallel chunks, as the collector they belong to checks it.
+ */
+public final class DiffCollector implements DiffSink {
+
+    /**
+     * Number of nodes visited between checks of time, cancellation token and interruption.
+     */
+    static final int CHECK_INTERVAL = 64;
+
+    private final DiffSink sink;
+    private final DiffBudget budget;
+    /**
+     * Collector whose nodes budget is shared, for probes looking for any difference within a subtree.
+     */
+    private final DiffCollector parent;
+    private int count;
+    private boolean stopped;
+    private boolean truncated;
+    private long nodes;
+    private int depth;
+    private final boolean cancellable;
+    private boolean interruptible;
+    private final long deadline;
+    private int untilCheck;
+    private Map<Object, Object> sortedViews;
+    private VisitedPairs visited;
+    private Fingerprints fingerprints;
+    private boolean reportingRightOnly = true;
+    private boolean verifying;
+    private boolean firstOnly;
+    /**
+     * Differences of a chunk compared in parallel, passed to the collector it was forked from on join.
+     */
+    private List<Diff> buffer;
+
+    public DiffCollector(DiffSink sink) {
+        this(sink, DiffBudget.UNLIMITED);
+    }
+
+    public DiffCollector(DiffSink sink, DiffBudget budget) {
+        this(sink, budget, null);
+    }
+
+    private DiffCollector(DiffSink sink, DiffBudget budget, DiffCollector parent) {
+        this.sink = sink;
+        this.budget = budget;
+        this.parent = parent;
+        this.cancellable = budget.isCancellable();
+        this.interruptible = parent == null;
+        long timeout = budget.getTimeoutNanos();
+        this.deadline = timeout != Long.MAX_VALUE ? System.nanoTime() + timeout : 0L;
+    }
+
+    /**
+     * Collector for sink stopping at the first difference, so chunks compared in parallel stop at their first difference too.
+     */
+    static DiffCollector firstOnly(DiffSink sink, DiffBudget budget) {
+        DiffCollector collector = new DiffCollector(sink, budget);
+        collector.firstOnly = true;
+        return collector;
+    }
+
+    /**
+     * Collector of equality check, stopping at the first difference, which ignores interruption, as it can't tell a partial result.
+     */
+    static DiffCollector equality() {
+        DiffCollector collector = firstOnly(diff -> false, DiffBudget.UNLIMITED);
+        collector.interruptible = false;
+        return collector;
+    }
+
+    /**
+     * Collector adding all differences to given collection.
+     */
+    public static DiffCollector of(Collection<? super Diff> diffs) {
+        return new DiffCollector(DiffSink.of(diffs));
+    }
+
+    /**
+     * Passes difference to the sink, unless it was stopped already. Returns false once sink is stopped.
+     */
+    @Override
+    public boolean accept(Diff diff) {
+        if (isStopped())
+            return false;
+        if (count >= budget.getMaxDiffs()) {
+            String reason = "maxDiffs=" + budget.getMaxDiffs();
+            truncate(diff.getPath() != null ? new Diff(diff.getPath(), null, Diff.TRUNCATED, reason)
+                    : new Diff(diff.getFieldName(), null, Diff.TRUNCATED, reason));
+            return false;
+        }
+        count++;
+        if (!sink.accept(diff))
+            stopped = true;
+        return !stopped;
+    }
+
+    /**
+     * Passes all differences to the sink, up to the one it stops at.
+     */
+    public boolean acceptAll(Collection<Diff> diffs) {
+        for (Diff diff : diffs) {
+            if (!accept(diff))
+                return false;
+        }
+        return !isStopped();
+    }
+
+    /**
+     * Counts node at the path as visited, returns false if traversal is to stop, because it was stopped already
+     * or because nodes budget ran out, in which case the path is reported as truncated.
+     */
+    public boolean visit(DiffPath path) {
+        if (isStopped())
+            return false;
+        if (parent != null && !parent.visit(path))
+            return false;
+        if (++nodes > budget.getMaxNodes()) {
+            truncate(new Diff(path, null, Diff.TRUNCATED, "maxNodes=" + budget.getMaxNodes()));
+            return false;
+        }
+        if ((cancellable || interruptible) && --untilCheck < 0) {
+            untilCheck = CHECK_INTERVAL - 1;
+            String reason = checkCancelled();
+            if (reason != null) {
+                truncate(new Diff(path, null, Diff.TRUNCATED, reason));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reason to stop, or null to go on.
+     */
+    private String checkCancelled() {
+        if (Thread.currentThread().isInterrupted())
+            return "interrupted";
+        if (budget.getCancellation() != null && budget.getCancellation().getAsBoolean())
+            return "cancelled";
+        if (budget.getTimeoutNanos() != Long.MAX_VALUE && System.nanoTime() - deadline >= 0)
+            return "timeout=" + Duration.ofNanos(budget.getTimeoutNanos());
+        return null;
+    }
+
+    private void truncate(Diff marker) {
+        stopped = true;
+        truncated = true;
+        if (parent == null)
+            sink.accept(marker);
+    }
+
+    /**
+     * Collector stopping at the first difference, without depth limit, and sharing nodes budget with this one.
+     */
+    DiffCollector probe() {
+        DiffCollector probe = new DiffCollector(diff -> false, DiffBudget.UNLIMITED, this);
+        probe.verifying = verifying;
+        return probe;
+    }
+
+    /**
+     * Probe confirming objects with the same fingerprint are equal, comparing them without fingerprints.
+     */
+    DiffCollector verifier() {
+        DiffCollector probe = probe();
+        probe.verifying = true;
+        return probe;
+    }
+
+    boolean isVerifying() {
+        return verifying;
+    }
+
+    /**
+     * Sorted copy of given collection or array made earlier in this traversal, or null.
+     * Full diffs reach the same instances in both directions, so each is sorted once.
+     */
+    Object getSortedView(Object source) {
+        DiffCollector owner = parent != null ? parent : this;
+        return owner.sortedViews != null ? owner.sortedViews.get(source) : null;
+    }
+
+    void putSortedView(Object source, Object sorted) {
+        DiffCollector owner = parent != null ? parent : this;
+        if (owner.sortedViews == null)
+            owner.sortedViews = new IdentityHashMap<>();
+        owner.sortedViews.put(source, sorted);
+    }
+
+    /**
+     * Marks pair of objects as being compared, returns {@link VisitedPairs#IN_PROGRESS} if it is compared already, further up the path,
+     * or {@link VisitedPairs#EQUAL} if it was compared before in this traversal without any difference.
+     */
+    byte enterPair(Object left, Object right) {
+        DiffCollector owner = parent != null ? parent : this;
+        if (owner.visited == null)
+            owner.visited = new VisitedPairs();
+        return owner.visited.enter(left, right);
+    }
+
+    void exitPair(Object left, Object right, boolean equal) {
+        DiffCollector owner = parent != null ? parent : this;
+        owner.visited.exit(left, right, equal);
+    }
+
+    /**
+     * True if set, sequence or keyed list elements and sorted map entries found only on the right are reported, with MISSING left value.
+     * Full diffs turn it off, as their right to left pass reports the same elements as left only ones.
+     */
+    public boolean isReportingRightOnly() {
+        return parent != null ? parent.reportingRightOnly : reportingRightOnly;
+    }
+
+    public void setReportingRightOnly(boolean reportingRightOnly) {
+        this.reportingRightOnly = reportingRightOnly;
+    }
+
+    /**
+     * Fingerprints of objects of this traversal, or null before the first one is needed.
+     */
+    Fingerprints getFingerprints() {
+        return parent != null ? parent.fingerprints : fingerprints;
+    }
+
+    void setFingerprints(Fingerprints fingerprints) {
+        DiffCollector owner = parent != null ? parent : this;
+        owner.fingerprints = fingerprints;
+    }
+
+    /**
+     * True if parts of the traversal may run on other threads and be joined, which keeps result the same as long as only
+     * differences are limited, not nodes or time. Chunks already running on other threads don't fork further.
+     */
+    boolean isForkable() {
+        return parent == null && buffer == null && budget.getMaxNodes() == Long.MAX_VALUE && !cancellable;
+    }
+
+    /**
+     * Collector for a chunk compared on another thread, buffering differences and limited to the differences still allowed here.
+     */
+    DiffCollector fork() {
+        int remaining = budget.getMaxDiffs() == Integer.MAX_VALUE ? Integer.MAX_VALUE : Math.max(0, budget.getMaxDiffs() - count) + 1;
+        List<Diff> chunkDiffs = new ArrayList<>();
+        // only the first difference of a chunk can be accepted here, if the sink stops at it
+        DiffSink chunkSink = firstOnly ? diff -> {
+            chunkDiffs.add(diff);
+            return false;
+        } : DiffSink.of(chunkDiffs);
+        DiffCollector chunk = new DiffCollector(chunkSink,
+                DiffBudget.UNLIMITED.withMaxDepth(budget.getMaxDepth()).withMaxDiffs(remaining));
+        chunk.buffer = chunkDiffs;
+        chunk.firstOnly = firstOnly;
+        chunk.interruptible = false;
+        chunk.depth = depth;
+        chunk.reportingRightOnly = reportingRightOnly;
+        // pairs compared further up the path are cycles within the chunk too
+        if (visited != null && !visited.isEmpty()) {
+            chunk.visited = new VisitedPairs();
+            chunk.visited.enterAll(visited);
+        }
+        return chunk;
+    }
+
+    /**
+     * Passes differences of the chunk to the sink, as if they were found here. Returns false once sink is stopped.
+     */
+    boolean join(DiffCollector chunk) {
+        nodes += chunk.nodes;
+        List<Diff> chunkDiffs = chunk.buffer;
+        // chunk runs out of differences only past the ones allowed here, so its marker is not passed on
+        int size = chunk.truncated ? chunkDiffs.size() - 1 : chunkDiffs.size();
+        for (int i = 0; i < size; i++) {
+            if (!accept(chunkDiffs.get(i)))
+                return false;
+        }
+        return !isStopped();
+    }
+
+    void enter() {
+        depth++;
+    }
+
+    void exit() {
+        depth--;
+    }
+
+    /**
+     * Number of objects being compared field by field, above the current one.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public DiffBudget getBudget() {
+        return budget;
+    }
+
+    public boolean isStopped() {
+        return stopped || (parent != null && parent.stopped);
+    }
+
+    /**
+     * True if traversal was stopped because of budget, see {@link DiffBudget}.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Clears counts and stop flag, so collector can be used for another traversal.
+     */
+    void reset() {
+        count = 0;
+        stopped = false;
+        truncated = false;
+        nodes = 0;
+        depth = 0;
+        untilCheck = 0;
+        sortedViews = null;
+        fingerprints = null;
+        reportingRightOnly = true;
+        if (visited != null && !visited.clear())
+            visited = null;
+    }
+
+    /**
+     * Number of differences passed to the sink so far.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Number of nodes visited so far.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,311 @@
+package com.bblackbird;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Immutable path to a compared value, made of parent pointer plus field or index/key segment.
+ * Child paths share their parent, so traversal only allocates one small node per step and nothing when going back up.
+ *
+ * Dotted name is rendered only when asked for, i.e. by {@link Diff#getFieldName()} or context filters,
+ * with the same rules as former parent fields and prefixes stacks: fields and index/key segments are kept as two
+ * separate sequences, and each field is followed by the segment at the same position, if there is one and it is not empty.
+ * Leaf paths, see {@link #leaf(Field)} and {@link #leaf(String)}, name the compared member of the value at this path
+ * and can't be extended.
+ */
+public final class DiffPath {
+
+    private static final byte ROOT = 0;
+    private static final byte FIELD = 1;
+    private static final byte KEY = 2;
+    private static final byte INDEX = 3;
+    private static final byte FIELD_LEAF = 4;
+    private static final byte NAME_LEAF = 5;
+    private static final byte UNTRACKED_ROOT = 6;
+
+    public static final DiffPath EMPTY = new DiffPath(null, ROOT, null, 0, 0, 0, null);
+
+    /**
+     * Path which is not tracked: appending segments to it returns the same instance, and it renders as empty name.
+     * Used where only presence of differences matters, so traversal doesn't allocate paths.
+     */
+    static final DiffPath UNTRACKED = new DiffPath(null, UNTRACKED_ROOT, null, 0, 0, 0, null);
+
+    private final DiffPath parent;
+    private final byte kind;
+    private final Object segment;
+    private final int index;
+    private final int fieldCount;
+    private final int keyCount;
+    private final PathFilter.State filterState;
+
+    private DiffPath(DiffPath parent, byte kind, Object segment, int index, int fieldCount, int keyCount, PathFilter.State filterState) {
+        this.parent = parent;
+        this.kind = kind;
+        this.segment = segment;
+        this.index = index;
+        this.fieldCount = fieldCount;
+        this.keyCount = keyCount;
+        this.filterState = filterState;
+    }
+
+    /**
+     * Same path as given parent fields and prefixes stacks.
+     */
+    public static DiffPath of(Deque<Field> parentFields, Deque<String> prefix) {
+        DiffPath path = EMPTY;
+        for (Field f : parentFields)
+            path = path.field(f);
+        for (String key : prefix)
+            path = path.key(key);
+        return path;
+    }
+
+    public DiffPath field(Field f) {
+        if (kind == UNTRACKED_ROOT)
+            return this;
+        checkNotLeaf();
+        return new DiffPath(this, FIELD, f, 0, fieldCount + 1, keyCount, filterState != null ? filterState.next(f.getName()) : null);
+    }
+
+    /**
+     * Appends index or key segment, rendered with {@link String#valueOf(Object)}. Empty segment is not rendered nor matched by path filter.
+     */
+    public DiffPath key(Object key) {
+        if (kind == UNTRACKED_ROOT)
+            return this;
+        checkNotLeaf();
+        PathFilter.State state = filterState;
+        if (state != null) {
+            String name = String.valueOf(key);
+            if (!name.isEmpty())
+                state = state.next(name);
+        }
+        return new DiffPath(this, KEY, key, 0, fieldCount, keyCount + 1, state);
+    }
+
+    public DiffPath index(int index) {
+        if (kind == UNTRACKED_ROOT)
+            return this;
+        checkNotLeaf();
+        return new DiffPath(this, INDEX, null, index, fieldCount, keyCount + 1, filterState != null ? filterState.next(index) : null);
+    }
+
+    /**
+     * Name of field f of the value at this path, f may be null for values without field i.e. collection elements.
+     */
+    public DiffPath leaf(Field f) {
+        if (kind == UNTRACKED_ROOT)
+            return this;
+        checkNotLeaf();
+        return new DiffPath(this, FIELD_LEAF, f, 0, fieldCount, keyCount, filterState);
+    }
+
+    /**
+     * Name of member of the value at this path, given by name, which may be empty.
+     */
+    public DiffPath leaf(String name) {
+        if (kind == UNTRACKED_ROOT)
+            return this;
+        checkNotLeaf();
+        return new DiffPath(this, NAME_LEAF, name, 0, fieldCount, keyCount, filterState);
+    }
+
+    /**
+     * Same path, with state of given path filter kept along, and advanced by every segment appended to it.
+     */
+    public DiffPath filter(PathFilter filter) {
+        if (kind == UNTRACKED_ROOT)
+            return this;
+        if (kind == ROOT)
+            return filter == null ? EMPTY : new DiffPath(null, ROOT, null, 0, 0, 0, filter.root());
+        DiffPath path = parent.filter(filter);
+        switch (kind) {
+            case FIELD:
+                return path.field((Field) segment);
+            case KEY:
+                return path.key(segment);
+            case INDEX:
+                return path.index(index);
+            case FIELD_LEAF:
+                return path.leaf((Field) segment);
+            default:
+                return path.leaf((String) segment);
+        }
+    }
+
+    /**
+     * Path filter state of this path, or null if it is not filtered.
+     */
+    public PathFilter.State getFilterState() {
+        return filterState;
+    }
+
+    public DiffPath getParent() {
+        return parent;
+    }
+
+    public boolean isEmpty() {
+        return kind == ROOT || kind == UNTRACKED_ROOT;
+    }
+
+    /**
+     * False for the path used when differences are only looked for, not reported.
+     */
+    public boolean isTracked() {
+        return kind != UNTRACKED_ROOT;
+    }
+
+    /**
+     * Number of field segments in this path, or parent fields stack size.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Last field segment of this path, or null if there is none.
+     */
+    public Field getLastField() {
+        for (DiffPath p = this; p.parent != null; p = p.parent) {
+            if (p.kind == FIELD)
+                return (Field) p.segment;
+        }
+        return null;
+    }
+
+    /**
+     * Field of this segment, for field and field leaf paths.
+     */
+    public Field getField() {
+        return kind == FIELD || kind == FIELD_LEAF ? (Field) segment : null;
+    }
+
+    /**
+     * Index or key of this segment, for index and key paths.
+     */
+    public Object getKey() {
+        return kind == KEY ? segment : kind == INDEX ? (Object) index : null;
+    }
+
+    /**
+     * Parent fields stack of this path, for use with stack based API.
+     */
+    public Deque<Field> getFields() {
+        Deque<Field> fields = new ArrayDeque<>(fieldCount);
+        for (DiffPath p = this; p.parent != null; p = p.parent) {
+            if (p.kind == FIELD)
+                fields.addFirst((Field) p.segment);
+        }
+        return fields;
+    }
+
+    /**
+     * Prefixes stack of this path, for use with stack based API.
+     */
+    public Deque<String> getPrefixes() {
+        Deque<String> prefixes = new ArrayDeque<>(keyCount);
+        for (DiffPath p = this; p.parent != null; p = p.parent) {
+            if (p.kind == KEY || p.kind == INDEX)
+                prefixes.addFirst(p.keyString());
+        }
+        return prefixes;
+    }
+
+    private String keyString() {
+        return kind == INDEX ? String.valueOf(index) : String.valueOf(segment);
+    }
+
+    private void checkNotLeaf() {
+        if (kind == FIELD_LEAF || kind == NAME_LEAF)
+            throw new IllegalStateException("Leaf path can't be extended: " + this);
+    }
+
+    /**
+     * Renders dotted name of this path.
+     */
+    @Override
+    public String toString() {
+        switch (kind) {
+            case FIELD_LEAF:
+                return parent.render((Field) segment);
+            case NAME_LEAF:
+                return parent.render((String) segment);
+            default:
+                return render((String) null);
+        }
+    }
+
+    private String render(String name) {
+        boolean noName = name == null || name.isEmpty();
+        StringBuilder sb = new StringBuilder();
+        if (fieldCount == 0) {
+            if (keyCount == 0)
+                return noName ? "" : name;
+            appendKeys(sb);
+        } else {
+            appendFields(sb, null);
+        }
+        if (!noName)
+            sb.append('.').append(name);
+        return sb.toString();
+    }
+
+    private String render(Field f) {
+        StringBuilder sb = new StringBuilder();
+        if (fieldCount == 0) {
+            if (f != null)
+                sb.append(f.getName());
+            if (keyCount > 0)
+                appendKeys(sb.append('.'));
+            return sb.toString();
+        }
+        appendFields(sb, f);
+        return sb.toString();
+    }
+
+    /**
+     * Appends all index/key segments separated by dots, including empty ones.
+     */
+    private void appendKeys(StringBuilder sb) {
+        String[] keys = keys();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0)
+                sb.append('.');
+            sb.append(keys[i]);
+        }
+    }
+
+    /**
+     * Appends fields, each one followed by the non empty index/key segment at the same position.
+     */
+    private void appendFields(StringBuilder sb, Field last) {
+        Field[] fields = new Field[last != null ? fieldCount + 1 : fieldCount];
+        int i = fieldCount;
+        for (DiffPath p = this; p.parent != null; p = p.parent) {
+            if (p.kind == FIELD)
+                fields[--i] = (Field) p.segment;
+        }
+        if (last != null)
+            fields[fieldCount] = last;
+        String[] keys = keys();
+        for (i = 0; i < fields.length; i++) {
+            if (i > 0)
+                sb.append('.');
+            sb.append(fields[i].getName());
+            if (i < keys.length && !keys[i].isEmpty())
+                sb.append('.').append(keys[i]);
+        }
+    }
+
+    private String[] keys() {
+        String[] keys = new String[keyCount];
+        int i = keyCount;
+        for (DiffPath p = this; p.parent != null; p = p.parent) {
+            if (p.kind == KEY || p.kind == INDEX)
+                keys[--i] = p.keyString();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,26 @@
+package com.bblackbird;
+
+import java.util.Collection;
+
+/**
+ * Receives differences as they are found during traversal, instead of having them collected into a list first.
+ * Returning false from {@link #accept(Diff)} stops the traversal, so no more differences are looked for.
+ */
+@FunctionalInterface
+public interface DiffSink {
+
+    /**
+     * Accepts difference found, returns true to continue or false to stop traversal.
+     */
+    boolean accept(Diff diff);
+
+    /**
+     * Sink adding all differences to given collection.
+     */
+    static DiffSink of(Collection<? super Diff> diffs) {
+        return diff -> {
+            diffs.add(diff);
+            return true;
+        };
+    }
+}
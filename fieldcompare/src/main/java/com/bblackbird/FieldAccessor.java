@@ -0,0 +1,300 @@
+package com.bblackbird;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+
+/**
+ * Field reader resolved once per {@link Field}.
+ * It uses {@link MethodHandle} getter obtained through {@link MethodHandles#privateLookupIn}, so there are no access checks
+ * nor {@code setAccessible} calls on every read as with {@link Field#get(Object)}.
+ * Primitive fields can be read without boxing through typed getters, i.e. {@link #getLong(Object)}.
+ * In case private lookup is not allowed for declaring class (not opened module) it falls back to plain reflection.
+ * Record components are read through their accessor methods instead, see {@link #of(RecordComponent, Field)}.
+ */
+public abstract class FieldAccessor {
+
+    protected final Field field;
+
+    protected FieldAccessor(Field field) {
+        this.field = field;
+    }
+
+    public static FieldAccessor of(Field field) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            return new MethodHandleAccessor(field, lookup.unreflectGetter(field));
+        } catch (IllegalAccessException | SecurityException e) {
+            return new ReflectiveAccessor(field);
+        }
+    }
+
+    /**
+     * Accessor of record component backed by the given field, reading it through component accessor method.
+     * Public accessors of public records are resolved with public lookup, so no private access is needed at all.
+     */
+    public static FieldAccessor of(RecordComponent component, Field field) {
+        try {
+            Class<?> recordClass = component.getDeclaringRecord();
+            MethodHandles.Lookup lookup = Modifier.isPublic(recordClass.getModifiers()) ?
+                    MethodHandles.publicLookup() :
+                    MethodHandles.privateLookupIn(recordClass, MethodHandles.lookup());
+            return new MethodHandleAccessor(field, lookup.unreflect(component.getAccessor()));
+        } catch (IllegalAccessException | SecurityException e) {
+            return of(field);
+        }
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    public boolean isPrimitive() {
+        return field.getType().isPrimitive();
+    }
+
+    /**
+     * Reads field value, primitive values are boxed as with {@link Field#get(Object)}.
+     */
+    public abstract Object get(Object target);
+
+    /**
+     * Typed getters below must only be used for fields of the matching primitive type.
+     */
+    public abstract int getInt(Object target);
+
+    public abstract long getLong(Object target);
+
+    public abstract short getShort(Object target);
+
+    public abstract double getDouble(Object target);
+
+    public abstract float getFloat(Object target);
+
+    public abstract boolean getBoolean(Object target);
+
+    public abstract char getChar(Object target);
+
+    public abstract byte getByte(Object target);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" + field + "}";
+    }
+
+    protected static RuntimeException readFailure(Field field, Throwable ex) {
+        try {
+            FieldCompare.rethrowRuntimeException(ex);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        return new IllegalStateException("Not allowed to access field '" + field.getName() + "': " + ex);
+    }
+
+    /**
+     * Method handle based accessor.
+     * Generic getter is adapted to (Object)Object and typed one to (Object)primitive so both can be invoked exactly.
+     */
+    static final class MethodHandleAccessor extends FieldAccessor {
+
+        private final MethodHandle getter;
+        private final MethodHandle primitiveGetter;
+
+        MethodHandleAccessor(Field field, MethodHandle handle) {
+            super(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            this.getter = handle.asType(MethodType.methodType(Object.class, Object.class));
+            this.primitiveGetter = field.getType().isPrimitive() ? handle.asType(MethodType.methodType(field.getType(), Object.class)) : null;
+        }
+
+        @Override
+        public Object get(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public int getInt(Object target) {
+            try {
+                return (int) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public long getLong(Object target) {
+            try {
+                return (long) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public short getShort(Object target) {
+            try {
+                return (short) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                return (double) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public float getFloat(Object target) {
+            try {
+                return (float) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object target) {
+            try {
+                return (boolean) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public char getChar(Object target) {
+            try {
+                return (char) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public byte getByte(Object target) {
+            try {
+                return (byte) primitiveGetter.invokeExact(target);
+            } catch (Throwable ex) {
+                throw readFailure(field, ex);
+            }
+        }
+    }
+
+    /**
+     * Plain reflection fallback, same as original {@link FieldCompare#getField(Field, Object)} path.
+     */
+    static final class ReflectiveAccessor extends FieldAccessor {
+
+        ReflectiveAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public Object get(Object target) {
+            FieldCompare.makeAccessible(field);
+            return FieldCompare.getField(field, target);
+        }
+
+        @Override
+        public int getInt(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getInt(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public long getLong(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getLong(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public short getShort(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getShort(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getDouble(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public float getFloat(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getFloat(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public boolean getBoolean(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getBoolean(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public char getChar(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getChar(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+
+        @Override
+        public byte getByte(Object target) {
+            try {
+                FieldCompare.makeAccessible(field);
+                return field.getByte(target);
+            } catch (IllegalAccessException ex) {
+                throw readFailure(field, ex);
+            }
+        }
+    }
+}
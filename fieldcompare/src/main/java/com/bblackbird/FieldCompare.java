@@ -0,0 +1,3125 @@
+package com.bblackbird;
+
+import com.bblackbird.ComparePlan.FieldPlan;
+import com.google.common.base.Strings;
+import com.google.common.collect.MapMaker;
+import com.google.common.primitives.*;
+
+import java.io.Serializable;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+public class FieldCompare {
+
+    // Reflection code
+    //
+    /**
+     * Cache of reflection metadata per class: declared fields and their accessors, collection element types and compare plans.
+     */
+    private static final ClassMetadataCache metadataCache = new ClassMetadataCache(
+            Integer.getInteger("fieldcompare.metadataCache.maximumSize", ClassMetadataCache.UNBOUNDED));
+
+    public static Predicate<Field> isTransient = f -> Modifier.isTransient(f.getModifiers());
+    public static Predicate<Field> isStatic = f -> Modifier.isStatic(f.getModifiers());
+    public static Predicate<Field> isFinal = f -> Modifier.isFinal(f.getModifiers());
+    public static Predicate<Field> isTransientOrStatic = isTransient.or(isStatic);
+    /**
+     * Record component fields are always final, so they are not considered final by the filters below.
+     */
+    public static Predicate<Field> isRecordComponent = f -> f.getDeclaringClass().isRecord() && !Modifier.isStatic(f.getModifiers());
+    public static Predicate<Field> isTransientOrStaticOrFinal = isTransient.or(isStatic).or(isFinal.and(isRecordComponent.negate()));
+    public static Predicate<Field> isNotTransientOrStatic = isTransientOrStatic.negate();
+
+    // Extension Functions
+    //
+    public static ContextFilter defaultFieldFilter = ContextFilter.of((path, l, r, f) -> isTransientOrStaticOrFinal.test(f));
+    public static ContextFilter allFieldContextFilter = ContextFilter.of((path, l, r, f) -> true);
+
+    /**
+     * Flat context filter, called without intermediate functions. Path names the tested value, i.e. field f with left and right values.
+     */
+    @FunctionalInterface
+    public interface PathContextFilter {
+        boolean test(DiffPath path, Object left, Object right, Field f);
+    }
+
+    /**
+     * Curried context filter, traversal calls it through {@link PathContextFilter#test}, which renders path full name for it.
+     */
+    public interface ContextFilter extends Function<String, Function<Object, Function<Object, Predicate<Field>>>>, PathContextFilter {
+
+        @Override
+        default boolean test(DiffPath path, Object left, Object right, Field f) {
+            return apply(path.toString()).apply(left).apply(right).test(f);
+        }
+
+        /**
+         * Context filter calling flat filter directly during traversal, and with path of the full name when applied as function.
+         */
+        static ContextFilter of(PathContextFilter filter) {
+            return new ContextFilter() {
+                @Override
+                public boolean test(DiffPath path, Object left, Object right, Field f) {
+                    return filter.test(path, left, right, f);
+                }
+
+                @Override
+                public Function<Object, Function<Object, Predicate<Field>>> apply(String fullName) {
+                    DiffPath path = DiffPath.EMPTY.leaf(fullName);
+                    return left -> right -> f -> filter.test(path, left, right, f);
+                }
+            };
+        }
+    }
+
+    /**
+     * Flat null check, adds differences found for null values to diffs, and returns true if it did, in which case values are not compared further.
+     */
+    @FunctionalInterface
+    public interface NullCheck {
+        boolean check(DiffPath path, String fieldName, Object left, Object right, DiffSink diffs);
+    }
+
+    /**
+     * Curried null check, traversal calls it through {@link NullCheck#check}, which builds parent fields and prefixes stacks for it.
+     */
+    public interface CheckDiffNulls extends Function<Deque<Field>, Function<Deque<String>, Function<String, Function<Object, Function<Object, List<Diff>>>>>>, NullCheck {
+
+        @Override
+        default boolean check(DiffPath path, String fieldName, Object left, Object right, DiffSink diffs) {
+            List<Diff> nullDiffs = apply(path.getFields()).apply(path.getPrefixes()).apply(fieldName).apply(left).apply(right);
+            for (Diff diff : nullDiffs)
+                diffs.accept(diff);
+            return !nullDiffs.isEmpty();
+        }
+
+        /**
+         * Null check calling flat check directly during traversal.
+         */
+        static CheckDiffNulls of(NullCheck check) {
+            return new CheckDiffNulls() {
+                @Override
+                public boolean check(DiffPath path, String fieldName, Object left, Object right, DiffSink diffs) {
+                    return check.check(path, fieldName, left, right, diffs);
+                }
+
+                @Override
+                public Function<Deque<String>, Function<String, Function<Object, Function<Object, List<Diff>>>>> apply(Deque<Field> pf) {
+                    return prefix -> fieldName -> left -> right -> {
+                        List<Diff> diffs = new ArrayList<>();
+                        check.check(DiffPath.of(pf, prefix), fieldName, left, right, DiffSink.of(diffs));
+                        return diffs;
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Flat field comparison, passing differences found to diffs.
+     */
+    @FunctionalInterface
+    public interface CompareField<T> {
+        DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls, ContextFilter contextFilter,
+                              T left, T right, DiffCollector diffs);
+    }
+
+    public interface CompareFields<T> extends Function<Deque<Field>, Function<Deque<String>, Function<Predicate<Field>, Function<CheckDiffNulls, Function<ContextFilter, Function<T, Function<T, Function<Field, List<Diff>>>>>>>>>, CompareField<T> {
+
+        @Override
+        default DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls, ContextFilter contextFilter,
+                                      T left, T right, DiffCollector diffs) {
+            diffs.acceptAll(apply(path.getFields()).apply(path.getPrefixes()).apply(fieldFilter).apply(checkNulls).apply(contextFilter).apply(left).apply(right).apply(f));
+            return diffs;
+        }
+
+        /**
+         * Field comparison calling flat comparison directly.
+         */
+        static <T> CompareFields<T> of(CompareField<T> compare) {
+            return new CompareFields<T>() {
+                @Override
+                public DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls, ContextFilter contextFilter,
+                                              T left, T right, DiffCollector diffs) {
+                    return compare.compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+                }
+
+                @Override
+                public Function<Deque<String>, Function<Predicate<Field>, Function<CheckDiffNulls, Function<ContextFilter, Function<T, Function<T, Function<Field, List<Diff>>>>>>>> apply(Deque<Field> pf) {
+                    return prefix -> fieldFilter -> checkNulls -> contextFilter -> left -> right -> f -> {
+                        List<Diff> diffs = new ArrayList<>();
+                        compare.compare(DiffPath.of(pf, prefix), f, fieldFilter, checkNulls, contextFilter, left, right, DiffCollector.of(diffs));
+                        return diffs;
+                    };
+                }
+            };
+        }
+    }
+
+    //region Main API
+    /**
+     * This is the entry point for all comparisons.
+     * It return list of all differences {@link com.bblackbird.Diff}.
+     * Diffs methods go through "left" argument and compare with content of "right" object.
+     * Full diffs methods compare them both ways and combine all differences.
+     */
+
+    /**
+     * Simplest method that defaults to catch-all context filter and filters out transient and static fields.
+     */
+    public <T> List<Diff> diffs(T left, T right) {
+        return diffs(left, right, checkDiffNulls(), allFieldContextFilter, isNotTransientOrStatic);
+    }
+
+    /**
+     * Overload that defaults to catch-all context filter and accepts custom field filter.
+     */
+    public <T> List<Diff> diffs(T left, T right, Predicate<Field> fieldFilter) {
+        return diffs(left, right, checkDiffNulls(), allFieldContextFilter, fieldFilter);
+    }
+
+    /**
+     * Overload that defaults to catch-all context filter and accepts custom field filter, but still filters out transient and static fields.
+     */
+    public <T> List<Diff> diffsNoTransientOrStatic(T left, T right, Predicate<Field> filterFields) {
+        return diffs(left, right, checkDiffNulls(), allFieldContextFilter, filterFields.and(isTransientOrStaticOrFinal.negate()));
+    }
+
+    /**
+     * Overload that accepts custom context filter and filters out transient and static fields.
+     */
+    public <T> List<Diff> diffsWithContextFilter(T left, T right, ContextFilter contextFilter) {
+        return diffs(DiffPath.EMPTY, left, right, checkDiffNulls(), contextFilter, isNotTransientOrStatic);
+    }
+
+    /**
+     * Overload that accepts both custom context and field filters.
+     */
+    public <T> List<Diff> diffs(T left, T right, ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+        return diffs(DiffPath.EMPTY, left, right, checkDiffNulls(), contextFilter, fieldFilter);
+    }
+
+    /**
+     * Overload that accepts both custom context and field filters and also function to compare for nulls.
+     */
+    public <T> List<Diff> diffs(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+        return diffs(DiffPath.EMPTY, left, right, checkNulls, contextFilter, fieldFilter);
+    }
+
+    /**
+     * Overloads with budget of this comparison, instead of the one set on this instance, i.e. with timeout or cancellation token
+     * of the request comparison runs for. Differences found so far are returned when it runs out, see {@link Diff#isTruncated(List)}.
+     */
+    public <T> List<Diff> diffs(T left, T right, DiffBudget budget) {
+        return diffs(left, right, checkDiffNulls(), allFieldContextFilter, isNotTransientOrStatic, budget);
+    }
+
+    public <T> List<Diff> diffs(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter, DiffBudget budget) {
+        List<Diff> diffs = new ArrayList<>();
+        diffsTo(left, right, checkNulls, contextFilter, fieldFilter, budget, DiffSink.of(diffs));
+        return diffs;
+    }
+
+    /**
+     * Full-diffs series of methods just combine differences both ways.
+     */
+    public <T> List<Diff> fullDiffs(T left, T right) {
+        return fullDiffs(left, right, checkDiffNulls(), allFieldContextFilter, isNotTransientOrStatic);
+    }
+
+    public <T> List<Diff> fullDiffs(T left, T right, Predicate<Field> fieldFilter) {
+        return fullDiffs(left, right, checkDiffNulls(), allFieldContextFilter, fieldFilter);
+    }
+
+    public <T> List<Diff> fullDiffsWithContextFilter(T left, T right, ContextFilter contextFilter) {
+        return fullDiffs(left, right, checkDiffNulls(), contextFilter, isNotTransientOrStatic);
+    }
+
+    public <T> List<Diff> fullDiffs(T left, T right, ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+        return fullDiffs(left, right, checkDiffNulls(), contextFilter, fieldFilter);
+    }
+
+    public <T> List<Diff> fullDiffs(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+        List<Diff> diffs = new ArrayList<Diff>();
+        fullDiffsTo(left, right, checkNulls, contextFilter, fieldFilter, DiffSink.of(diffs));
+        return diffs;
+    }
+
+    /**
+     * Streaming series of methods pass differences to the sink as they are found, without collecting them into a list.
+     * Traversal ends as soon as the sink returns false, in which case these methods return false.
+     */
+    public <T> boolean diffsTo(T left, T right, DiffSink sink) {
+        return diffsTo(left, right, checkDiffNulls(), allFieldContextFilter, isNotTransientOrStatic, sink);
+    }
+
+    public <T> boolean diffsTo(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter, DiffSink sink) {
+        return diffsTo(left, right, checkNulls, contextFilter, fieldFilter, budget, sink);
+    }
+
+    public <T> boolean diffsTo(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter,
+                               DiffBudget budget, DiffSink sink) {
+        return !diffs(DiffPath.EMPTY, left, right, checkNulls, contextFilter, fieldFilter, new DiffCollector(sink, budget)).isStopped();
+    }
+
+    public <T> boolean fullDiffsTo(T left, T right, DiffSink sink) {
+        return fullDiffsTo(left, right, checkDiffNulls(), allFieldContextFilter, isNotTransientOrStatic, sink);
+    }
+
+    public <T> boolean fullDiffsTo(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter, DiffSink sink) {
+        DiffCollector diffs = new DiffCollector(sink, budget);
+        // right only set elements and map entries are found by the right to left pass
+        diffs.setReportingRightOnly(false);
+        diffs(DiffPath.EMPTY, left, right, checkNulls, contextFilter, fieldFilter, diffs);
+        diffs(DiffPath.EMPTY, right, left, checkNulls, contextFilter, fieldFilter, diffs);
+        return !diffs.isStopped();
+    }
+
+    /**
+     * Equality series of methods tell if there is any difference, with the same filters and null semantics as diffs methods,
+     * i.e. both null bean references make objects different. Traversal stops at the first difference.
+     * With default null check and catch-all context filter, paths are not tracked and the equal path allocates nothing.
+     */
+    public <T> boolean deepEquals(T left, T right) {
+        return deepEquals(left, right, checkDiffNulls(), allFieldContextFilter, isNotTransientOrStatic);
+    }
+
+    public <T> boolean deepEquals(T left, T right, Predicate<Field> fieldFilter) {
+        return deepEquals(left, right, checkDiffNulls(), allFieldContextFilter, fieldFilter);
+    }
+
+    public <T> boolean deepEquals(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+        DiffPath path = isPathUsed(checkNulls, contextFilter) ? DiffPath.EMPTY : DiffPath.UNTRACKED;
+        DiffCollector collector = acquireEqualityCollector();
+        try {
+            return !diffs(path, left, right, checkNulls, contextFilter, fieldFilter, collector).isStopped();
+        } finally {
+            releaseEqualityCollector(collector);
+        }
+    }
+
+    /**
+     * Returns the first difference diffs method would return, or null if there is none.
+     */
+    public <T> Diff firstDiff(T left, T right) {
+        return firstDiff(left, right, checkDiffNulls(), allFieldContextFilter, isNotTransientOrStatic);
+    }
+
+    public <T> Diff firstDiff(T left, T right, Predicate<Field> fieldFilter) {
+        return firstDiff(left, right, checkDiffNulls(), allFieldContextFilter, fieldFilter);
+    }
+
+    public <T> Diff firstDiff(T left, T right, CheckDiffNulls checkNulls, ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+        // Equal objects are found without tracking paths, different ones are compared again to name the difference
+        if (!isPathUsed(checkNulls, contextFilter) && deepEquals(left, right, checkNulls, contextFilter, fieldFilter))
+            return null;
+        Diff[] first = new Diff[1];
+        diffs(DiffPath.EMPTY, left, right, checkNulls, contextFilter, fieldFilter, DiffCollector.firstOnly(diff -> {
+            first[0] = diff;
+            return false;
+        }, budget));
+        return first[0];
+    }
+
+    /**
+     * Custom null checks, context filters and key extractors registered by full name look at the path,
+     * otherwise it is only needed to name differences.
+     */
+    private boolean isPathUsed(CheckDiffNulls checkNulls, ContextFilter contextFilter) {
+        return checkNulls != defaultCheckNulls || contextFilter != allFieldContextFilter || !pathKeyExtractorsMap.isEmpty();
+    }
+
+    /**
+     * Collector stopping at first difference, reused per thread. Nested use on the same thread, i.e. from equals or getters, gets a new one.
+     */
+    private static final ThreadLocal<DiffCollector> equalityCollector = ThreadLocal.withInitial(DiffCollector::equality);
+
+    private static DiffCollector acquireEqualityCollector() {
+        DiffCollector collector = equalityCollector.get();
+        if (collector == null)
+            return DiffCollector.equality();
+        equalityCollector.set(null);
+        collector.reset();
+        return collector;
+    }
+
+    private static void releaseEqualityCollector(DiffCollector collector) {
+        equalityCollector.set(collector);
+    }
+
+    /**
+     * Compare tvo objects of same type field by field, left to right i.e. data in right object not present in left is not accounted for.
+     * This method is recursively called as object fields are traversed.
+     *
+     * Parent Fields stores stack of all parent field names
+     * Prefix has stack of value name(s)
+     * CheckDiffNulls - function used for comparing null values if any
+     * Context Field Filter - allows field filtering based on context that consists of full name, values and field details
+     * Field filter - based on field details
+     * Object comparison supported for following types:
+     * Collections - Lists, Maps, Sets and Collections only for now
+     * Arrays
+     * Complex objects - user defined
+     * Simple objects - jdk ones
+     */
+    public <T> List<Diff> diffs(Deque<Field> parentFields, Deque<String> prefix, T left, T right, CheckDiffNulls checkNulls,
+                                ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+
+        return diffs(DiffPath.of(parentFields, prefix), left, right, checkNulls, contextFilter, fieldFilter);
+    }
+
+    public <T> List<Diff> diffs(Deque<Field> parentFields, Deque<String> prefix, T left, T right, CheckDiffNulls checkNulls,
+                                ContextFilter contextFilter, Predicate<Field> fieldFilter, List<Diff> diffs) {
+
+        return diffs(DiffPath.of(parentFields, prefix), left, right, checkNulls, contextFilter, fieldFilter, diffs);
+    }
+
+    /**
+     * Same as above, with parent fields and prefixes given as immutable {@link DiffPath}.
+     */
+    public <T> List<Diff> diffs(DiffPath path, T left, T right, CheckDiffNulls checkNulls,
+                                ContextFilter contextFilter, Predicate<Field> fieldFilter) {
+
+        List<Diff> diffs = new ArrayList<Diff>();
+        return diffs(path, left, right, checkNulls, contextFilter, fieldFilter, diffs);
+
+    }
+
+    public <T> List<Diff> diffs(DiffPath path, T left, T right, CheckDiffNulls checkNulls,
+                                ContextFilter contextFilter, Predicate<Field> fieldFilter, List<Diff> diffs) {
+
+        diffs(path, left, right, checkNulls, contextFilter, fieldFilter, new DiffCollector(DiffSink.of(diffs), budget));
+        return diffs;
+    }
+
+    /**
+     * Same as above, passing differences to the collector as they are found. Traversal ends early once collector is stopped.
+     */
+    public <T> DiffCollector diffs(DiffPath path, T left, T right, CheckDiffNulls checkNulls,
+                                   ContextFilter contextFilter, Predicate<Field> fieldFilter, DiffCollector diffs) {
+
+        if (diffs.isStopped())
+            return diffs;
+
+        if (contextFilter instanceof PathFilter && getFilterState(path, contextFilter) == null)
+            path = path.filter((PathFilter) contextFilter);
+
+        if (checkNulls.check(path, getClassName(left, right), left, right, diffs))
+            return diffs;
+
+        // Only differences found here count, diffs may already hold earlier ones i.e. for full diffs
+        int count = diffs.getCount();
+        if (checkClassNames(path, getClassName(left, right), left, right, diffs).getCount() != count)
+            return diffs;
+
+        if (compareObjects(left, right))
+            return diffs;
+
+        if (fingerprintMode != FingerprintMode.OFF && !diffs.isVerifying() && !isPathUsed(checkNulls, contextFilter)
+                && isSameFingerprint(path, fieldFilter, checkNulls, contextFilter, left, right, diffs))
+            return diffs;
+
+        PathFilter.State filterState = getFilterState(path, contextFilter);
+        if (filterState != null) {
+            if (filterState.isPruned())
+                return diffs;
+        } else if (path.getFieldCount() > 0 && contextFilter != allFieldContextFilter
+                && !contextFilter.test(path.leaf(left.getClass().getName()), left, right, path.getLastField())) {
+            return diffs;
+        }
+
+        if (!diffs.visit(path))
+            return diffs;
+
+        // without tracking, only pairs this deep are tracked, and only to end reference cycles
+        if (!trackVisited && diffs.getDepth() < CYCLE_CHECK_DEPTH)
+            return compareNode(path, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+
+        byte state = diffs.enterPair(left, right);
+        // reference cycle, or shared objects already compared equal elsewhere
+        if (state == VisitedPairs.IN_PROGRESS || state == VisitedPairs.EQUAL)
+            return diffs;
+        int before = diffs.getCount();
+        try {
+            return compareNode(path, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+        } finally {
+            // custom null checks and filters may tell equal objects apart at another path, so only catch-all ones are reused
+            diffs.exitPair(left, right, trackVisited && diffs.getCount() == before && !diffs.isStopped() && !isPathUsed(checkNulls, contextFilter));
+        }
+    }
+
+    private DiffCollector compareNode(DiffPath path, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                      ContextFilter contextFilter, Object left, Object right, DiffCollector diffs) {
+        if (diffs.getDepth() > diffs.getBudget().getMaxDepth())
+            return compareSubtree(path, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+
+        diffs.enter();
+        try {
+            return compareObject(path, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+        } finally {
+            diffs.exit();
+        }
+    }
+
+    /**
+     * Compares two non null objects of the same class, that are not equal, by type: collections, maps, arrays or beans field by field.
+     */
+    protected DiffCollector compareObject(DiffPath path, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                          ContextFilter contextFilter, Object left, Object right, DiffCollector diffs) {
+        if (left instanceof List<?>)
+            return compare(path, null, fieldFilter, checkNulls, contextFilter, (List<?>) left, (List<?>) right, diffs);
+        else if (left instanceof Map<?, ?>)
+            return compare(path, null, fieldFilter, checkNulls, contextFilter, (Map<?, ?>) left, (Map<?, ?>) right, diffs);
+        else if (left instanceof Set<?>)
+            return compare(path, null, fieldFilter, checkNulls, contextFilter, (Set<?>) left, (Set<?>) right, diffs);
+        else if (left instanceof Collection<?>)
+            return compare(path, null, fieldFilter, checkNulls, contextFilter, (Collection<?>) left, (Collection<?>) right, diffs);
+        else if (left.getClass().isArray()) {
+            return compareAnyArray(path, null, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+        }
+
+        ComparePlan plan = getComparePlan(left.getClass(), fieldFilter);
+        if (parallelPool != null && diffs.getDepth() <= PARALLEL_FIELDS_MAX_DEPTH && diffs.isForkable()) {
+            DiffCollector forked = compareFieldsParallel(path, plan, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            if (forked != null)
+                return forked;
+        }
+        GeneratedComparator generated = left.getClass() == right.getClass() ? plan.getComparator(engine) : null;
+        if (generated != null) {
+            // Generated comparator skips fields that can't differ without boxing or reflective reads.
+            // Skipped fields are still visited, so node budgets run out at the same field as with reflection.
+            int next = 0;
+            for (int i = generated.nextCandidate(left, right, 0); i >= 0; i = generated.nextCandidate(left, right, i + 1)) {
+                if (!visitFields(path, next, i + 1, diffs))
+                    return diffs;
+                next = i + 1;
+                FieldPlan fp = plan.fields[i];
+                FieldAccessor accessor = generated.getAccessor(i);
+                if (fp.accessor.isPrimitive())
+                    comparePrimitiveField(path, fp, accessor, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+                else
+                    compareBeanField(path, fp, fieldFilter, checkNulls, contextFilter, accessor.get(left), accessor.get(right), diffs);
+            }
+            visitFields(path, next, plan.fields.length, diffs);
+            return diffs;
+        }
+        for (FieldPlan fp : plan.fields) {
+            if (!diffs.visit(path))
+                break;
+            if (fp.accessor.isPrimitive())
+                comparePrimitiveField(path, fp, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            else
+                compareBeanField(path, fp, fieldFilter, checkNulls, contextFilter, fp.accessor.get(left), fp.accessor.get(right), diffs);
+        }
+        return diffs;
+    }
+
+    /**
+     * Visits fields from index up to, but not including, another one, returns false if traversal is to stop.
+     */
+    private static boolean visitFields(DiffPath path, int from, int to, DiffCollector diffs) {
+        for (int i = from; i < to; i++) {
+            if (!diffs.visit(path))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fields holding sub trees estimated at parallel threshold elements or more are compared as fork join tasks, while the rest
+     * are compared on this thread. Differences are passed to the collector in field order, so they are the same as sequential ones.
+     * Returns null, without comparing anything, if there is no such field.
+     */
+    @SuppressWarnings("unchecked")
+    protected DiffCollector compareFieldsParallel(DiffPath path, ComparePlan plan, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                                  ContextFilter contextFilter, Object left, Object right, DiffCollector diffs) {
+        FieldPlan[] fields = plan.fields;
+        ForkJoinTask<DiffCollector>[] tasks = null;
+        Object[] leftValues = null;
+        for (int i = 0; i < fields.length; i++) {
+            FieldPlan fp = fields[i];
+            if (!isSubTree(fp))
+                continue;
+            Object leftValue = fp.accessor.get(left);
+            if (estimateSize(leftValue, fieldFilter, true) < parallelThreshold) {
+                if (leftValues == null)
+                    leftValues = new Object[fields.length];
+                leftValues[i] = leftValue;
+                continue;
+            }
+            Object rightValue = fp.accessor.get(right);
+            DiffCollector chunk = diffs.fork();
+            ForkJoinTask<DiffCollector> task = ForkJoinTask.adapt(
+                    () -> compareBeanField(path, fp, fieldFilter, checkNulls, contextFilter, leftValue, rightValue, chunk));
+            if (ForkJoinTask.getPool() == parallelPool)
+                task.fork();
+            else
+                parallelPool.execute(task);
+            if (tasks == null)
+                tasks = new ForkJoinTask[fields.length];
+            tasks[i] = task;
+        }
+        if (tasks == null)
+            return null;
+
+        for (int i = 0; i < fields.length; i++) {
+            FieldPlan fp = fields[i];
+            if (!diffs.visit(path) || (tasks[i] != null && !diffs.join(tasks[i].join()))) {
+                for (int j = i; j < fields.length; j++) {
+                    if (tasks[j] != null)
+                        tasks[j].cancel(false);
+                }
+                break;
+            }
+            if (tasks[i] != null)
+                continue;
+            if (fp.accessor.isPrimitive()) {
+                comparePrimitiveField(path, fp, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            } else {
+                // sub tree fields were read already for size estimate
+                Object leftValue = isSubTree(fp) ? leftValues[i] : fp.accessor.get(left);
+                compareBeanField(path, fp, fieldFilter, checkNulls, contextFilter, leftValue, fp.accessor.get(right), diffs);
+            }
+        }
+        return diffs;
+    }
+
+    private static boolean isSubTree(FieldPlan fp) {
+        switch (fp.category) {
+            case LIST: case MAP: case SET: case COLLECTION: case ARRAY: case OBJECT: case DYNAMIC:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Cheap estimate of the number of nodes below a value: size of collections, maps and arrays,
+     * and for beans the sizes of those held by their fields, looking one level down only.
+     */
+    private long estimateSize(Object value, Predicate<Field> fieldFilter, boolean bean) {
+        if (value == null)
+            return 0;
+        if (value instanceof Collection<?>)
+            return ((Collection<?>) value).size();
+        if (value instanceof Map<?, ?>)
+            return ((Map<?, ?>) value).size();
+        if (value.getClass().isArray())
+            return Array.getLength(value);
+        if (!bean || isSimpleType(value.getClass()) || isJdk(value.getClass()))
+            return 1;
+        long size = 1;
+        for (FieldPlan fp : getComparePlan(value.getClass(), fieldFilter).fields) {
+            if (isSubTree(fp))
+                size += estimateSize(fp.accessor.get(value), fieldFilter, false);
+        }
+        return size;
+    }
+
+    /**
+     * True if both objects have the same structural fingerprint, see {@link Fingerprints}, confirmed in VERIFY mode
+     * by comparing them without fingerprints, up to the first difference.
+     */
+    private boolean isSameFingerprint(DiffPath path, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls, ContextFilter contextFilter,
+                                      Object left, Object right, DiffCollector diffs) {
+        Fingerprints fingerprints = diffs.getFingerprints();
+        if (fingerprints == null) {
+            fingerprints = new Fingerprints(this, fieldFilter, this.fingerprints);
+            diffs.setFingerprints(fingerprints);
+        }
+        long fingerprint = fingerprints.of(left);
+        if (fingerprint == Fingerprints.NONE || fingerprint != fingerprints.of(right))
+            return false;
+        if (fingerprintMode == FingerprintMode.TRUST)
+            return true;
+        DiffCollector verifier = diffs.verifier();
+        diffs(DiffPath.UNTRACKED, left, right, checkNulls, contextFilter, fieldFilter, verifier);
+        return !verifier.isStopped();
+    }
+
+    /**
+     * Objects below maximum depth are only checked for any difference, reported as a single one for the whole subtree.
+     */
+    protected DiffCollector compareSubtree(DiffPath path, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                           ContextFilter contextFilter, Object left, Object right, DiffCollector diffs) {
+        DiffCollector probe = diffs.probe();
+        DiffPath probePath = isPathUsed(checkNulls, contextFilter) ? path : DiffPath.UNTRACKED;
+        compareObject(probePath, fieldFilter, checkNulls, contextFilter, left, right, probe);
+        if (probe.getCount() > 0)
+            diffs.accept(new Diff(path, left.getClass(), Diff.SUBTREE_DIFFERS, Diff.SUBTREE_DIFFERS));
+        return diffs;
+    }
+
+    /**
+     * Compares one primitive field of two beans without boxing. Values are read as primitives, and are boxed only when they differ,
+     * for context filter, null check and reported diff. Equal values are skipped right away, same as equal boxed values would be.
+     */
+    protected DiffCollector comparePrimitiveField(DiffPath path, FieldPlan fp, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                               ContextFilter contextFilter, Object leftBean, Object rightBean, DiffCollector diffs) {
+        return comparePrimitiveField(path, fp, fp.accessor, fieldFilter, checkNulls, contextFilter, leftBean, rightBean, diffs);
+    }
+
+    /**
+     * Same as above, reading values through given accessor, i.e. one of compiled comparator.
+     */
+    protected DiffCollector comparePrimitiveField(DiffPath path, FieldPlan fp, FieldAccessor accessor, Predicate<Field> fieldFilter,
+                                               CheckDiffNulls checkNulls, ContextFilter contextFilter, Object leftBean, Object rightBean,
+                                               DiffCollector diffs) {
+        Field f = fp.field;
+        switch (fp.category) {
+            case INT: {
+                int left = accessor.getInt(leftBean), right = accessor.getInt(rightBean);
+                if (left == right || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            case LONG: {
+                long left = accessor.getLong(leftBean), right = accessor.getLong(rightBean);
+                if (left == right || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            case SHORT: {
+                short left = accessor.getShort(leftBean), right = accessor.getShort(rightBean);
+                if (left == right || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            case DOUBLE: {
+                // Double.compare has the same semantics as Double.equals for NaN and signed zeros
+                double left = accessor.getDouble(leftBean), right = accessor.getDouble(rightBean);
+                if (Double.compare(left, right) == 0 || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            case FLOAT: {
+                float left = accessor.getFloat(leftBean), right = accessor.getFloat(rightBean);
+                if (Float.compare(left, right) == 0 || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            case BOOLEAN: {
+                boolean left = accessor.getBoolean(leftBean), right = accessor.getBoolean(rightBean);
+                if (left == right || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            case CHAR: {
+                char left = accessor.getChar(leftBean), right = accessor.getChar(rightBean);
+                if (left == right || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            case BYTE: {
+                byte left = accessor.getByte(leftBean), right = accessor.getByte(rightBean);
+                if (left == right || !acceptPrimitiveDiff(path, f, checkNulls, contextFilter, left, right, diffs))
+                    return diffs;
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            }
+            default:
+                return compareBeanField(path, fp, fieldFilter, checkNulls, contextFilter, accessor.get(leftBean), accessor.get(rightBean), diffs);
+        }
+    }
+
+    /**
+     * Applies context filter and null check to differing primitive values, returns true if they should be compared.
+     */
+    private boolean acceptPrimitiveDiff(DiffPath path, Field f, CheckDiffNulls checkNulls, ContextFilter contextFilter,
+                                        Object left, Object right, DiffCollector diffs) {
+        if (isFilteredOut(path, f, contextFilter, left, right))
+            return false;
+        if (checkNulls.check(path, f.getName(), left, right, diffs))
+            return false;
+        return true;
+    }
+
+    /**
+     * Compares values of one planned field of two beans. Each field value is read only once, and used both for context filtering and comparison.
+     */
+    protected DiffCollector compareBeanField(DiffPath path, FieldPlan fp, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                          ContextFilter contextFilter, Object leftValue, Object rightValue, DiffCollector diffs) {
+        if (isFilteredOut(path, fp.field, contextFilter, leftValue, rightValue))
+            return diffs;
+        return compareField(path, fp, fieldFilter, checkNulls, contextFilter, leftValue, rightValue, diffs);
+    }
+
+    /**
+     * Returns true if field f of values at the path is filtered out by context filter.
+     * Path filter is matched by advancing path filter state by field name, without building full name.
+     */
+    private boolean isFilteredOut(DiffPath path, Field f, ContextFilter contextFilter, Object left, Object right) {
+        if (contextFilter == allFieldContextFilter)
+            return false;
+        PathFilter.State filterState = getFilterState(path, contextFilter);
+        if (filterState != null)
+            return !accepts(filterState.next(f.getName()), left, right);
+        return !contextFilter.test(path.leaf(f.getName()), left, right, f);
+    }
+
+    /**
+     * Returns true if collection, array or map element at item path is filtered out by path filter.
+     */
+    private boolean isFilteredOut(DiffPath itemPath, ContextFilter contextFilter, Object value) {
+        PathFilter.State filterState = getFilterState(itemPath, contextFilter);
+        return filterState != null && !accepts(filterState, value, value);
+    }
+
+    /**
+     * Same as {@link PathFilter.State#accepts(Object, Object)}, with values of any simple type as leaves,
+     * so values compared as a whole are reported only at included paths, not on the way to them.
+     */
+    private boolean accepts(PathFilter.State filterState, Object left, Object right) {
+        return filterState.isIncluded() || (!filterState.isPruned() && !isSimpleValue(left) && !isSimpleValue(right));
+    }
+
+    private boolean isSimpleValue(Object value) {
+        return value == null || isSimpleType(value.getClass());
+    }
+
+    /**
+     * Path filter state of the path, if context filter is the path filter it was built with.
+     */
+    private static PathFilter.State getFilterState(DiffPath path, ContextFilter contextFilter) {
+        PathFilter.State filterState = path.getFilterState();
+        return filterState != null && filterState.getFilter() == contextFilter ? filterState : null;
+    }
+
+    protected <T> boolean compareObjects(T left, T right) {
+        return left == right || left.equals(right);
+    }
+
+    protected <T> CompareFields<T> compareFields() {
+        return CompareFields.of((path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs) ->
+                compareField(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs));
+    }
+
+    /**
+     * Field comparison driven by precomputed {@link ComparePlan} category, instead of resolving value type for every field.
+     */
+    protected DiffCollector compareField(DiffPath path, FieldPlan fp, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                      ContextFilter contextFilter, Object left, Object right, DiffCollector diffs) {
+        Field f = fp.field;
+        if (checkNulls.check(path, f.getName(), left, right, diffs))
+            return diffs;
+
+        if (left == null || left == right || left.equals(right)) {
+            return diffs;
+        }
+
+        switch (fp.category) {
+            case INT:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Integer) left).intValue(), ((Integer) right).intValue(), diffs);
+            case LONG:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Long) left).longValue(), ((Long) right).longValue(), diffs);
+            case SHORT:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Short) left).shortValue(), ((Short) right).shortValue(), diffs);
+            case DOUBLE:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Double) left).doubleValue(), ((Double) right).doubleValue(), diffs);
+            case FLOAT:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Float) left).floatValue(), ((Float) right).floatValue(), diffs);
+            case BOOLEAN:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Boolean) left).booleanValue(), ((Boolean) right).booleanValue(), diffs);
+            case CHAR:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Character) left).charValue(), ((Character) right).charValue(), diffs);
+            case BYTE:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Byte) left).byteValue(), ((Byte) right).byteValue(), diffs);
+            case STRING:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, (String) left, (String) right, diffs);
+            case ENUM:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, (Enum<?>) left, (Enum<?>) right, diffs);
+            case BIG_DECIMAL:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, (BigDecimal) left, (BigDecimal) right, diffs);
+            case LIST:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, (List<?>) left, (List<?>) right, diffs);
+            case MAP:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, (Map<?, ?>) left, (Map<?, ?>) right, diffs);
+            case SET:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, (Set<?>) left, (Set<?>) right, diffs);
+            case COLLECTION:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, (Collection<?>) left, (Collection<?>) right, diffs);
+            case ARRAY:
+                return compareAnyArray(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            case WRAPPER:
+            case OBJECT:
+                return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+            default:
+                return compareField(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+        }
+    }
+
+    /**
+     * Field comparison which resolves how to compare based on runtime value and declared field type.
+     */
+    protected DiffCollector compareField(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                      ContextFilter contextFilter, Object left, Object right, DiffCollector diffs) {
+        if (checkNulls.check(path, f.getName(), left, right, diffs))
+            return diffs;
+
+        if (left == null || left == right || left.equals(right)) {
+            return diffs;
+        }
+        if (isString(left.getClass())) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (String) left, (String) right, diffs);
+        }
+
+        if (isPrimitiveType(left.getClass())) {
+            return compareAnyPrimitiveType(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+        }
+
+        if (left instanceof Enum<?>) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (Enum<?>) left, (Enum<?>) right, diffs);
+        }
+
+        if (f.getType().isAssignableFrom(BigDecimal.class))
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (BigDecimal) left, (BigDecimal) right, diffs);
+
+        if (f.getType().isAssignableFrom(List.class))
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (List<?>) left, (List<?>) right, diffs);
+        else if (f.getType().isAssignableFrom(Map.class))
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (Map<?, ?>) left, (Map<?, ?>) right, diffs);
+        else if (f.getType().isAssignableFrom(Set.class))
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (Set<?>) left, (Set<?>) right, diffs);
+        else if (f.getType().isAssignableFrom(Collection.class))
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (Collection<?>) left, (Collection<?>) right, diffs);
+        else if (f.getType().isArray()) {
+            return compareAnyArray(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+        }
+
+        return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+    }
+    //endregion
+
+    //region Precondition Checkers
+    /**
+     * Precondition checkers
+     */
+    private final CheckDiffNulls defaultCheckNulls = CheckDiffNulls.of((path, name, l, r, diffs) -> {
+        List<Diff> nullDiffs = checkDiffNulls(path, name, l, r);
+        if (nullDiffs.isEmpty())
+            return false;
+        for (Diff diff : nullDiffs)
+            diffs.accept(diff);
+        return true;
+    });
+
+    protected CheckDiffNulls checkDiffNulls() {
+        return defaultCheckNulls;
+    }
+
+    protected List<Diff> createDiff(DiffPath path, String fieldName, Class<?> type, Object left, Object right) {
+        return Collections.singletonList(new Diff(path.leaf(fieldName), type, left, right));
+    }
+
+    /**
+     *
+     * This null check is used in case of "complex" types in order to make less verbose output.
+     */
+    protected List<Diff> checkComplexTypeNulls(DiffPath path, String fieldName, Object left, Object right) {
+
+        if (left == null && right == null) {
+            return createDiff(path, fieldName, null, "NULL", "NULL");
+        } else if (left != null && right == null) {
+            return createDiff(path, fieldName, left.getClass(), "NON-NULL", "NULL");
+        } else if (left == null && right != null) {
+            return createDiff(path, fieldName, right.getClass(), "NULL", "NON-NULL");
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Method responsible how to deal with null comparisons for both simple and non-simple types.
+     */
+    protected <T> List<Diff> checkDiffNulls(DiffPath path, String fieldName, T left, T right) {
+
+        if(!isSimpleType(getClassType(left, right)))
+            return checkComplexTypeNulls(path, fieldName, left, right);
+
+        if (left == null && right == null) {
+            //diffs.add(new Diff (getFullName (pf, field), "NULL", "NULL"));
+            return Collections.emptyList();
+        } else if (left != null && right == null) {
+            return createDiff(path, fieldName, left.getClass(), left, "NULL");
+        } else if (left == null && right != null) {
+            return createDiff(path, fieldName, right.getClass(), "NULL", right);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     *  Check if object types compared are the same.
+     */
+    protected DiffCollector checkClassNames(DiffPath path, String fieldName, Object left, Object right, DiffCollector diffs) {
+        if (!left.getClass().getName().equals(right.getClass().getName())) {
+            diffs.accept(new Diff(path.leaf(fieldName), left.getClass(), left.getClass().getName(), right.getClass().getName()));
+        }
+        return diffs;
+    }
+
+    /**
+     * Optional logging methods
+     */
+    protected void log(DiffPath path, Field f, Object left, Object right) {
+    }
+
+    protected void log(DiffPath path, Field f, Object left, Object right, Exception e) {
+    }
+    //endregion
+
+    //region Comparison Methods
+    /**
+     * Field value comparison methods
+     */
+
+    /**
+     * Collections comparison methods
+     */
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Map<?, ?> left, Map<?, ?> right, DiffCollector diffs) {
+        if (checkNulls.check(path, getClassName(left, right), left, right, diffs))
+            return diffs;
+        if (left == null || left == right || left.equals(right)) {
+            return diffs;
+        }
+        // Top level maps have no field, same as collections they are named after item field
+        DiffPath mapPath = path.field(getValidField(f));
+        if (isSameOrder(left, right))
+            return compareSorted(path, mapPath, fieldFilter, checkNulls, contextFilter, (SortedMap<?, ?>) left, (SortedMap<?, ?>) right, diffs);
+        if (isParallel(left.size(), diffs)) {
+            Map.Entry<?, ?>[] entries = left.entrySet().toArray(new Map.Entry<?, ?>[0]);
+            compareParallel(entries.length, diffs, (from, to, chunk) ->
+                    compareEntries(path, mapPath, fieldFilter, checkNulls, contextFilter, Arrays.asList(entries).subList(from, to), right, chunk));
+        } else {
+            compareEntries(path, mapPath, fieldFilter, checkNulls, contextFilter, left.entrySet(), right, diffs);
+        }
+        return diffs;
+    }
+
+    /**
+     * Compares left map entries with right map values of the same key.
+     */
+    protected DiffCollector compareEntries(DiffPath path, DiffPath mapPath, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                           ContextFilter contextFilter, Collection<? extends Map.Entry<?, ?>> entries, Map<?, ?> right,
+                                           DiffCollector diffs) {
+        for (Map.Entry<?, ?> entry : entries) {
+            if (!diffs.visit(path))
+                return diffs;
+            Object k = entry.getKey();
+            Object v = entry.getValue();
+            DiffPath keyPath = mapPath.key(k);
+            if (isFilteredOut(keyPath, contextFilter, v))
+                continue;
+            if(right.containsKey(k)) {
+                Object rightValue = right.get(k);
+                compare(keyPath, null, fieldFilter, checkNulls, contextFilter, v, rightValue, diffs);
+            } else {
+                diffs.accept(new Diff(keyPath, v.getClass(), v, "MISSING"));
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Sorted maps or sets with the same comparator iterate in the same order, so they can be merge joined.
+     */
+    private static boolean isSameOrder(Object left, Object right) {
+        if (left instanceof SortedMap<?, ?> && right instanceof SortedMap<?, ?>)
+            return Objects.equals(((SortedMap<?, ?>) left).comparator(), ((SortedMap<?, ?>) right).comparator());
+        if (left instanceof SortedSet<?> && right instanceof SortedSet<?>)
+            return Objects.equals(((SortedSet<?>) left).comparator(), ((SortedSet<?>) right).comparator());
+        return false;
+    }
+
+    /**
+     * Sorted maps compared in a single merge join pass over both entry sets, producing matched entries, left only and right only ones
+     * in key order, without looking keys up. Other maps are compared by left entries only, as before.
+     */
+    protected DiffCollector compareSorted(DiffPath path, DiffPath mapPath, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                          ContextFilter contextFilter, SortedMap<?, ?> left, SortedMap<?, ?> right, DiffCollector diffs) {
+        Comparator<Object> comparator = getOrder(left.comparator());
+        Iterator<? extends Map.Entry<?, ?>> leftIter = left.entrySet().iterator();
+        Iterator<? extends Map.Entry<?, ?>> rightIter = right.entrySet().iterator();
+        Map.Entry<?, ?> l = leftIter.hasNext() ? leftIter.next() : null;
+        Map.Entry<?, ?> r = rightIter.hasNext() ? rightIter.next() : null;
+        while (l != null || r != null) {
+            if (!diffs.visit(path))
+                return diffs;
+            int order = l == null ? 1 : r == null ? -1 : comparator.compare(l.getKey(), r.getKey());
+            if (order <= 0) {
+                Object v = l.getValue();
+                DiffPath keyPath = mapPath.key(l.getKey());
+                if (!isFilteredOut(keyPath, contextFilter, v)) {
+                    if (order == 0)
+                        compare(keyPath, null, fieldFilter, checkNulls, contextFilter, v, r.getValue(), diffs);
+                    else
+                        diffs.accept(new Diff(keyPath, v.getClass(), v, "MISSING"));
+                }
+                l = leftIter.hasNext() ? leftIter.next() : null;
+            } else {
+                acceptRightOnly(mapPath.key(r.getKey()), contextFilter, r.getValue(), diffs);
+            }
+            if (order >= 0)
+                r = rightIter.hasNext() ? rightIter.next() : null;
+        }
+        return diffs;
+    }
+
+    private void acceptRightOnly(DiffPath itemPath, ContextFilter contextFilter, Object v, DiffCollector diffs) {
+        if (diffs.isReportingRightOnly() && !isFilteredOut(itemPath, contextFilter, v))
+            diffs.accept(new Diff(itemPath, v != null ? v.getClass() : null, "MISSING", v));
+    }
+
+    private static Comparator<Object> getOrder(Comparator<?> comparator) {
+        return comparator != null ? (Comparator<Object>) comparator : (a, b) -> ((Comparable<Object>) a).compareTo(b);
+    }
+
+    public String item;
+
+    private Field getItemField() {
+        try {
+            return FieldCompare.class.getField("item");
+        } catch (NoSuchFieldException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private Field getValidField(Field f) {
+
+        if (f != null)
+            return f;
+
+        return getItemField();
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, List<?> left, List<?> right, DiffCollector diffs) {
+
+        Field validField = getValidField(f);
+        DiffPath fieldPath = validField != null ? path.field(validField) : path;
+
+        Function<Object, ?> keyExtractor = hasKeyExtractors() ? getKeyExtractor(path, f, left) : null;
+        if (keyExtractor != null)
+            return compareKeyed(path, fieldPath, keyExtractor, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, l -> sortListIfRequired(l, f, c -> new ArrayList(c), () -> null));
+            right = sortedView(right, diffs, l -> sortListIfRequired(l, f, c -> new ArrayList(c), () -> null));
+        }
+
+        if (listMode == ListMode.SEQUENCE)
+            return compareSequence(path, fieldPath, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+
+        Set<Object>  rightSet = right.stream().collect(Collectors.toSet());
+
+        List<?> leftList = left, rightList = right;
+        if (isParallel(left.size(), diffs))
+            return compareParallel(left.size(), diffs, (from, to, chunk) ->
+                    compareRange(path, fieldPath, fieldFilter, checkNulls, contextFilter, leftList, rightList, rightSet, from, to, chunk));
+        return compareRange(path, fieldPath, fieldFilter, checkNulls, contextFilter, left, right, rightSet, 0, left.size(), diffs);
+    }
+
+    /**
+     * Compares list elements from index to index, elements present anywhere in the right list are skipped.
+     */
+    protected DiffCollector compareRange(DiffPath path, DiffPath fieldPath, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                         ContextFilter contextFilter, List<?> left, List<?> right, Set<Object> rightSet,
+                                         int from, int to, DiffCollector diffs) {
+        for (int i = from; i < to; i++) {
+            if (!diffs.visit(path))
+                break;
+            Object vLeft = left.get(i);
+
+            if(rightSet.contains(vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = fieldPath.index(i);
+            if (isFilteredOut(itemPath, contextFilter, vLeft))
+                continue;
+            if (i < right.size()) {
+                Object vRight = right.get(i);
+                compare(itemPath, null, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath, vLeft.getClass(), vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Compares elements from index to index, passing differences to the collector of the chunk.
+     */
+    @FunctionalInterface
+    protected interface CompareRange {
+        DiffCollector compare(int from, int to, DiffCollector diffs);
+    }
+
+    protected boolean isParallel(int size, DiffCollector diffs) {
+        return parallelPool != null && size >= parallelThreshold && diffs.isForkable();
+    }
+
+    /**
+     * Splits elements into chunks compared as fork join tasks, then passes their differences to the collector in index order.
+     */
+    protected DiffCollector compareParallel(int size, DiffCollector diffs, CompareRange range) {
+        int chunkSize = Math.max(PARALLEL_MIN_CHUNK, (size + parallelPool.getParallelism() * 4 - 1) / (parallelPool.getParallelism() * 4));
+        List<ForkJoinTask<DiffCollector>> tasks = new ArrayList<>();
+        for (int from = 0; from < size; from += chunkSize) {
+            int start = from, end = Math.min(size, from + chunkSize);
+            DiffCollector chunk = diffs.fork();
+            tasks.add(ForkJoinTask.adapt(() -> range.compare(start, end, chunk)));
+        }
+        if (ForkJoinTask.getPool() == parallelPool)
+            ForkJoinTask.invokeAll(tasks);
+        else
+            parallelPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        for (ForkJoinTask<DiffCollector> task : tasks) {
+            if (!diffs.join(task.join()))
+                break;
+        }
+        return diffs;
+    }
+
+    protected static final int PARALLEL_MIN_CHUNK = 1024;
+
+    /**
+     * Lists compared as sequences, see {@link ListMode#SEQUENCE}. Elements changed in place are named after their left index,
+     * removed ones after their left index with MISSING right value, and inserted ones after their right index with MISSING left value.
+     */
+    protected DiffCollector compareSequence(DiffPath path, DiffPath fieldPath, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                            ContextFilter contextFilter, List<?> left, List<?> right, DiffCollector diffs) {
+        Object[] leftValues = left.toArray(), rightValues = right.toArray();
+        int[] changes = SequenceDiff.changes(leftValues, rightValues, SEQUENCE_MAX_EDITS);
+        for (int c = 0; c < changes.length; c += 4) {
+            int leftTo = changes[c + 1], rightTo = changes[c + 3];
+            for (int i = changes[c], j = changes[c + 2]; i < leftTo || j < rightTo; i++, j++) {
+                if (!diffs.visit(path))
+                    return diffs;
+                if (i < leftTo) {
+                    Object vLeft = leftValues[i];
+                    DiffPath itemPath = fieldPath.index(i);
+                    if (isFilteredOut(itemPath, contextFilter, vLeft))
+                        continue;
+                    if (j < rightTo)
+                        compare(itemPath, null, fieldFilter, checkNulls, contextFilter, vLeft, rightValues[j], diffs);
+                    else
+                        diffs.accept(new Diff(itemPath, vLeft != null ? vLeft.getClass() : null, vLeft, "MISSING"));
+                } else {
+                    acceptRightOnly(fieldPath.index(j), contextFilter, rightValues[j], diffs);
+                }
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Elements matched by key with a single hash join, right elements are indexed by key and left ones looked up in order.
+     * Matched pairs are compared and named after their left index, left only elements are reported with MISSING right value,
+     * and right only ones after their right index with MISSING left value. Elements with duplicate keys are matched in order.
+     */
+    protected DiffCollector compareKeyed(DiffPath path, DiffPath fieldPath, Function<Object, ?> keyExtractor, Predicate<Field> fieldFilter,
+                                         CheckDiffNulls checkNulls, ContextFilter contextFilter, Collection<?> left, Collection<?> right,
+                                         DiffCollector diffs) {
+        Object[] rightValues = right.toArray();
+        // first right index per key, further ones with the same key are chained
+        Map<Object, Integer> rightIndexes = new HashMap<>(Math.max(16, (int) (rightValues.length / 0.75f) + 1));
+        int[] next = new int[rightValues.length];
+        for (int j = rightValues.length - 1; j >= 0; j--) {
+            Integer first = rightIndexes.put(getKey(keyExtractor, rightValues[j]), j);
+            next[j] = first != null ? first : -1;
+        }
+        boolean[] matched = new boolean[rightValues.length];
+
+        int i = 0;
+        for (Object vLeft : left) {
+            if (!diffs.visit(path))
+                return diffs;
+            DiffPath itemPath = fieldPath.index(i++);
+            Object key = getKey(keyExtractor, vLeft);
+            Integer j = rightIndexes.get(key);
+            if (j != null) {
+                matched[j] = true;
+                if (next[j] >= 0)
+                    rightIndexes.put(key, next[j]);
+                else
+                    rightIndexes.remove(key);
+            }
+            if (isFilteredOut(itemPath, contextFilter, vLeft))
+                continue;
+            if (j != null)
+                compare(itemPath, null, fieldFilter, checkNulls, contextFilter, vLeft, rightValues[j], diffs);
+            else
+                diffs.accept(new Diff(itemPath, vLeft != null ? vLeft.getClass() : null, vLeft, "MISSING"));
+        }
+
+        for (int j = 0; j < rightValues.length; j++) {
+            if (matched[j])
+                continue;
+            if (!diffs.visit(path))
+                return diffs;
+            acceptRightOnly(fieldPath.index(j), contextFilter, rightValues[j], diffs);
+        }
+        return diffs;
+    }
+
+    private static Object getKey(Function<Object, ?> keyExtractor, Object value) {
+        return value != null ? keyExtractor.apply(value) : null;
+    }
+
+    /**
+     * Elements of the left set missing from the right one are reported with MISSING right value, then elements of the right set
+     * missing from the left one with MISSING left value. Elements are named after their position in sorted set, positions of all
+     * missing elements are found in a single pass over sorted copy of the set, or over the set itself if it is already sorted.
+     * Right only elements are not reported by full diffs, see {@link DiffCollector#isReportingRightOnly()}.
+     * Two sets sorted in natural order are merge joined instead, see {@link #compareSorted(DiffPath, DiffPath, ContextFilter, SortedSet, SortedSet, DiffCollector)}.
+     */
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Set<?> left, Set<?> right, DiffCollector diffs) {
+
+        Field validField = getValidField(f);
+        DiffPath fieldPath = validField != null ? path.field(validField) : path;
+
+        if (isSameOrder(left, right) && isSorted(left, f))
+            return compareSorted(path, fieldPath, contextFilter, (SortedSet<?>) left, (SortedSet<?>) right, diffs);
+
+        List<Object> leftOnly = getMissing(left, right);
+        List<Object> rightOnly = diffs.isReportingRightOnly() ? getMissing(right, left) : Collections.emptyList();
+
+        if (!leftOnly.isEmpty()) {
+            Map<Object, Integer> positions = getPositions(left, f, leftOnly, diffs);
+            for (Object elem : leftOnly) {
+                if (!diffs.visit(path))
+                    return diffs;
+                DiffPath itemPath = fieldPath.index(positions.get(elem));
+                if (!isFilteredOut(itemPath, contextFilter, elem))
+                    diffs.accept(new Diff(itemPath, elem != null ? elem.getClass() : null, elem, "MISSING"));
+            }
+        }
+        if (!rightOnly.isEmpty()) {
+            Map<Object, Integer> positions = getPositions(right, f, rightOnly, diffs);
+            for (Object elem : rightOnly) {
+                if (!diffs.visit(path))
+                    return diffs;
+                acceptRightOnly(fieldPath.index(positions.get(elem)), contextFilter, elem, diffs);
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Sorted sets in natural order compared in a single merge join pass, positions are counted on both sides as they go.
+     */
+    protected DiffCollector compareSorted(DiffPath path, DiffPath fieldPath, ContextFilter contextFilter,
+                                          SortedSet<?> left, SortedSet<?> right, DiffCollector diffs) {
+        Comparator<Object> comparator = getOrder(left.comparator());
+        Iterator<?> leftIter = left.iterator();
+        Iterator<?> rightIter = right.iterator();
+        Object l = leftIter.hasNext() ? leftIter.next() : null;
+        Object r = rightIter.hasNext() ? rightIter.next() : null;
+        int leftPosition = 0, rightPosition = 0;
+        while (l != null || r != null) {
+            int order = l == null ? 1 : r == null ? -1 : comparator.compare(l, r);
+            if (order != 0 && !diffs.visit(path))
+                return diffs;
+            if (order < 0) {
+                DiffPath itemPath = fieldPath.index(leftPosition);
+                if (!isFilteredOut(itemPath, contextFilter, l))
+                    diffs.accept(new Diff(itemPath, l.getClass(), l, "MISSING"));
+            } else if (order > 0) {
+                acceptRightOnly(fieldPath.index(rightPosition), contextFilter, r, diffs);
+            }
+            if (order <= 0) {
+                l = leftIter.hasNext() ? leftIter.next() : null;
+                leftPosition++;
+            }
+            if (order >= 0) {
+                r = rightIter.hasNext() ? rightIter.next() : null;
+                rightPosition++;
+            }
+        }
+        return diffs;
+    }
+
+    private static List<Object> getMissing(Set<?> set, Set<?> other) {
+        List<Object> missing = Collections.emptyList();
+        for (Object elem : set) {
+            if (!other.contains(elem)) {
+                if (missing.isEmpty())
+                    missing = new ArrayList<>();
+                missing.add(elem);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Positions of given elements in sorted set, found in one pass that ends once all of them are found.
+     */
+    private Map<Object, Integer> getPositions(Set<?> set, Field f, List<Object> elems, DiffCollector diffs) {
+        Map<Object, Integer> positions = new HashMap<>(Math.max(16, (int) (elems.size() / 0.75f) + 1));
+        for (Object elem : elems)
+            positions.put(elem, -1);
+        Iterable<?> sorted = set;
+        if (!isSorted(set, f))
+            sorted = sortedView((Iterable<Object>) set, diffs, s -> sortSet((Set<Object>) s, f, c -> new ArrayList<>(c), () -> null));
+        int position = 0, found = 0;
+        for (Object elem : sorted) {
+            if (positions.containsKey(elem)) {
+                positions.put(elem, position);
+                if (++found == elems.size())
+                    break;
+            }
+            position++;
+        }
+        return positions;
+    }
+
+    /**
+     * Sorted sets in natural order iterate the same as their sorted copy, unless there is comparator registered for their elements.
+     */
+    private boolean isSorted(Set<?> set, Field f) {
+        if (!(set instanceof SortedSet<?>) || ((SortedSet<?>) set).comparator() != null)
+            return false;
+        return comparatorsMap.isEmpty() || !hasComparator(getCollectionType(f, set));
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextfilter, Collection<?> left, Collection<?> right, DiffCollector diffs) {
+
+        Field validField = getValidField(f);
+        DiffPath fieldPath = validField != null ? path.field(validField) : path;
+
+        Function<Object, ?> keyExtractor = hasKeyExtractors() ? getKeyExtractor(path, f, left) : null;
+        if (keyExtractor != null)
+            return compareKeyed(path, fieldPath, keyExtractor, fieldFilter, checkNulls, contextfilter, left, right, diffs);
+
+        Set<Object>  rightSet = right.stream().collect(Collectors.toSet());
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, l -> sortCollectionIfRequired(l, f, c -> new ArrayList(c), () -> null));
+            right = sortedView(right, diffs, l -> sortCollectionIfRequired(l, f, c -> new ArrayList(c), () -> null));
+        }
+
+        Iterator<?> leftIter = left.iterator();
+        Iterator<?> rightIter = right.iterator();
+        for (int i = 0; i < left.size(); i++) {
+            if (!diffs.visit(path))
+                break;
+            Object vLeft = leftIter.next();
+
+            if(rightSet.contains(vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = fieldPath.index(i);
+            if (isFilteredOut(itemPath, contextfilter, vLeft)) {
+                if (i < right.size())
+                    rightIter.next();
+                continue;
+            }
+            if (i < right.size()) {
+                Object vRight = rightIter.next();
+                compare(itemPath, null, fieldFilter, checkNulls, contextfilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf((Field) null), vLeft.getClass(), vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Object comparison method
+     */
+
+    public int compare(Object left, Object right) {
+
+        if (left == null || left == right || left.equals(right)) {
+            return 0;
+        }
+
+        if (left instanceof Comparable<?>) {
+            return ((Comparable) left).compareTo(right);
+        }
+
+        return 1;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Object left, Object right, DiffCollector diffs) {
+        if (checkNulls.check(path, "", left, right, diffs))
+            return diffs;
+        if (compare(left, right) == 0) {
+            return diffs;
+        }
+
+        if (isSimpleType(left.getClass())) {
+            diffs.accept(new Diff(path.leaf(f), f != null ? f.getType() : left.getClass(), left, right));
+        } else {
+            DiffPath valuePath = f != null ? path.field(f).key("") : path;
+            int count = diffs.getCount();
+            diffs(valuePath, left, right, checkNulls, contextFilter, fieldFilter, diffs);
+            if (diffs.getCount() != count && path.isTracked())
+                log(path, f, left, right);
+        }
+        return diffs;
+    }
+
+    /**
+     * Support for String type
+     */
+
+    public int compare(String left, String right) {
+        return left.compareTo(right);
+    }
+
+    public DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checknulls,
+                              ContextFilter contextFilter, String left, String right, DiffCollector diffs) {
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), f != null ? f.getType() : left.getClass(), left, right));
+        }
+        return diffs;
+    }
+
+    /**
+     * Support for Big Decimal type
+     */
+
+    public int compare(BigDecimal left, BigDecimal right) {
+        BigDecimal leftClean = left.stripTrailingZeros();
+        BigDecimal rightClean = right.stripTrailingZeros();
+        return leftClean.compareTo(rightClean);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, BigDecimal left, BigDecimal right, DiffCollector diffs) {
+        try {
+            if (compare(left, right) != 0) {
+                diffs.accept(new Diff(path.leaf(f), f.getType(), left, right));
+                log(path, f, left, right);
+            }
+        } catch (Exception e) {
+            log(path, f, left, right, e);
+        }
+        return diffs;
+    }
+
+    /**
+     * Support for Enum types
+     */
+
+    public int compare(Enum<?> left, Enum<?> right) {
+        return left.ordinal() - right.ordinal();
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Enum<?> left, Enum<?> right, DiffCollector diffs) {
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), f != null ? f.getType() : left.getClass(), left, right));
+        }
+        return diffs;
+    }
+
+    /**
+     * Support for primitive types
+     */
+
+    public int compare(int left, int right) {
+        return Integer.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, int left, int right, DiffCollector diffs) {
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), int.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(long left, long right) {
+        return Long.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, long left, long right, DiffCollector diffs) {
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), long.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(short left, short right) {
+        return Short.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, short left, short right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), short.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(float left, float right) {
+        return Double.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, float left, float right, DiffCollector diffs) {
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), float.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(double left, double right) {
+        return Double.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, double left, double right, DiffCollector diffs) {
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), double.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(boolean left, boolean right) {
+        return Boolean.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, boolean left, boolean right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+
+            diffs.accept(new Diff(path.leaf(f), boolean.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(char left, char right) {
+        return Character.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, char left, char right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), char.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(byte left, byte right) {
+        return Byte.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> ieldFilter, CheckDiffNulls checkNulls, ContextFilter contextfilter, byte left, byte right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), byte.class, left, right));
+        }
+        return diffs;
+    }
+
+    /**
+     * Primitive wrappers
+     */
+
+    public int compare(Integer left, Integer right) {
+        return Integer.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Integer left, Integer right, DiffCollector diffs) {
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), Integer.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(Long left, Long right) {
+        return Long.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextfilter, Long left, Long right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), Long.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(Short left, Short right) {
+        return Short.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Short left, Short right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), Short.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(Float left, Float right) {
+        return Float.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Float left, Float right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), Float.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(Double left, Double right) {
+        return Double.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Double left, Double right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), Double.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(Boolean left, Boolean right) {
+        return Boolean.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Boolean left, Boolean right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+
+            diffs.accept(new Diff(path.leaf(f), Boolean.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(Character left, Character right) {
+        return Character.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Character left, Character right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), Character.class, left, right));
+        }
+        return diffs;
+    }
+
+    public int compare(Byte left, Byte right) {
+        return Byte.compare(left, right);
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> ieldFilter, CheckDiffNulls checkNulls, ContextFilter contextfilter, Byte left, Byte right, DiffCollector diffs) {
+
+        if (compare(left, right) != 0) {
+            diffs.accept(new Diff(path.leaf(f), Byte.class, left, right));
+        }
+        return diffs;
+    }
+
+    /**
+     * Primitive array types support - only because of java generics limitations
+     * Equal elements at the same index are skipped in bulk with {@link Arrays#mismatch}, the rest are looked up
+     * in the right array through {@link PrimitiveSets}, without boxing.
+     */
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls, ContextFilter contextFilter, short[] left, short[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        PrimitiveSets.IntSet rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+
+            short vLeft = left[i];
+
+            if (rightSet.contains(vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+
+                short vRight = right[i];
+
+                compare(itemPath, f, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), short.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls, ContextFilter contextFilter, int[] left, int[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        PrimitiveSets.IntSet rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+
+            int vLeft = left[i];
+
+            if (rightSet.contains(vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+
+                int vRight = right[i];
+
+                compare(itemPath, f, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+
+                diffs.accept(new Diff(itemPath.leaf(f), int.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls, ContextFilter contextFilter, long[] left, long[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        PrimitiveSets.LongSet rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+            long vLeft = left[i];
+
+            if (rightSet.contains(vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+                long vRight = right[i];
+                compare(itemPath, f, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), long.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, boolean[] left, boolean[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        int rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+            boolean vLeft = left[i];
+
+            if (PrimitiveSets.contains(rightSet, vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+                boolean vRight = right[i];
+                compare(itemPath, f, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), boolean.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, byte[] left, byte[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        BitSet rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+            byte vLeft = left[i];
+
+            if (PrimitiveSets.contains(rightSet, vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+                byte vRight = right[i];
+                compare(itemPath, f, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), byte.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, char[] left, char[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        BitSet rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+            char vLeft = left[i];
+
+            if (PrimitiveSets.contains(rightSet, vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+                char vRight = right[i];
+                compare(itemPath, f, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), char.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextfilter, double[] left, double[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        PrimitiveSets.LongSet rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+            double vLeft = left[i];
+
+            if (rightSet.contains(vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+                double vRight = right[i];
+                compare(itemPath, f, fieldFilter, checkNulls, contextfilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), double.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, float[] left, float[] right, DiffCollector diffs) {
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        int i = nextMismatch(left, right, 0);
+        if (i >= left.length)
+            return diffs;
+        PrimitiveSets.IntSet rightSet = PrimitiveSets.of(right);
+
+        for (; i < left.length; i = nextMismatch(left, right, i + 1)) {
+            if (!diffs.visit(path))
+                break;
+            float vLeft = left[i];
+
+            if (rightSet.contains(vLeft)) {
+                continue;
+            }
+
+            DiffPath itemPath = path.index(i);
+            if (i < right.length) {
+                float vRight = right[i];
+                compare(itemPath, f, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), float.class, vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Index of the next element that differs from the right one at the same index, found by bulk scan of equal elements,
+     * or the index itself once past the common length.
+     */
+    private static int nextMismatch(short[] left, short[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    private static int nextMismatch(int[] left, int[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    private static int nextMismatch(long[] left, long[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    private static int nextMismatch(boolean[] left, boolean[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    private static int nextMismatch(byte[] left, byte[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    private static int nextMismatch(char[] left, char[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    private static int nextMismatch(double[] left, double[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    private static int nextMismatch(float[] left, float[] right, int from) {
+        int common = Math.min(left.length, right.length);
+        if (from >= common)
+            return from;
+        int i = Arrays.mismatch(left, from, common, right, from, common);
+        return i < 0 ? common : from + i;
+    }
+
+    // End of primitive array support
+
+    protected DiffCollector compare(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                 ContextFilter contextFilter, Object[] left, Object[] right, DiffCollector diffs) {
+
+        return compareArray(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+    }
+
+    protected <T> DiffCollector compareArray(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                          ContextFilter contextFilter, T[] left, T[] right, DiffCollector diffs) {
+
+        Set<Object>  rightSet = Arrays.asList(right).stream().collect(Collectors.toSet());
+
+        if (!comparatorsMap.isEmpty()) {
+            left = sortedView(left, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+            right = sortedView(right, diffs, a -> sortArray(a, f, c -> c.clone(), () -> null));
+        }
+
+        DiffPath fieldPath = f != null ? path.field(f) : path;
+        T[] leftArray = left, rightArray = right;
+        if (isParallel(left.length, diffs))
+            return compareParallel(left.length, diffs, (from, to, chunk) ->
+                    compareRange(path, fieldPath, f, fieldFilter, checkNulls, contextFilter, leftArray, rightArray, rightSet, from, to, chunk));
+        return compareRange(path, fieldPath, f, fieldFilter, checkNulls, contextFilter, left, right, rightSet, 0, left.length, diffs);
+    }
+
+    /**
+     * Compares array elements from index to index, elements present anywhere in the right array are skipped.
+     */
+    protected <T> DiffCollector compareRange(DiffPath path, DiffPath fieldPath, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                             ContextFilter contextFilter, T[] left, T[] right, Set<Object> rightSet,
+                                             int from, int to, DiffCollector diffs) {
+        for (int i = from; i < to; i++) {
+            if (!diffs.visit(path))
+                break;
+            Object vLeft = left[i];
+
+            if(rightSet.contains(vLeft)){
+                continue;
+            }
+
+            DiffPath itemPath = fieldPath.index(i);
+            if (isFilteredOut(itemPath, contextFilter, vLeft))
+                continue;
+            if (i < right.length) {
+                Object vRight = right[i];
+                // This requires setting null for field as those are not primitive types.
+                compare(itemPath, null, fieldFilter, checkNulls, contextFilter, vLeft, vRight, diffs);
+            } else {
+                diffs.accept(new Diff(itemPath.leaf(f), vLeft.getClass(), vLeft, "NULL"));
+            }
+        }
+        return diffs;
+    }
+
+    protected <T> DiffCollector compareAnyArray(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                             ContextFilter contextFilter, T left, T right, DiffCollector diffs) {
+
+        if (left instanceof boolean[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (boolean[]) left, (boolean[]) right, diffs);
+        }
+        if (left instanceof byte[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (byte[]) left, (byte[]) right, diffs);
+        }
+        if (left instanceof char[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (char[]) left, (char[]) right, diffs);
+        }
+        if (left instanceof double[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (double[]) left, (double[]) right, diffs);
+        }
+        if (left instanceof float[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (float[]) left, (float[]) right, diffs);
+        }
+        if (left instanceof int[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (int[]) left, (int[]) right, diffs);
+        }
+        if (left instanceof long[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (long[]) left, (long[]) right, diffs);
+        }
+        if (left instanceof short[]) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, (short[]) left, (short[]) right, diffs);
+        }
+
+        return compare(path, f, fieldFilter, checkNulls, contextFilter, (Object[]) left, (Object[]) right, diffs);
+    }
+
+    protected <T> DiffCollector compareAnyPrimitiveType(DiffPath path, Field f, Predicate<Field> fieldFilter, CheckDiffNulls checkNulls,
+                                                     ContextFilter contextFilter, T left, T right, DiffCollector diffs) {
+
+        if (f.getType().isAssignableFrom(Integer.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Integer) left).intValue(), ((Integer) right).intValue(), diffs);
+        } else if (f.getType().isAssignableFrom(Long.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Long) left).longValue(), ((Long) right).longValue(), diffs);
+        } else if (f.getType().isAssignableFrom(Short.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Short) left).shortValue(), ((Short) right).shortValue(), diffs);
+        } else if (f.getType().isAssignableFrom(Double.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Double) left).doubleValue(), ((Double) right).doubleValue(), diffs);
+        } else if (f.getType().isAssignableFrom(Float.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Float) left).floatValue(), ((Float) right).floatValue(), diffs);
+        } else if (f.getType().isAssignableFrom(Boolean.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Boolean) left).booleanValue(), ((Boolean) right).booleanValue(), diffs);
+        } else if (f.getType().isAssignableFrom(Character.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Character) left).charValue(), ((Character) right).charValue(), diffs);
+        } else if (f.getType().isAssignableFrom(Byte.TYPE)) {
+            return compare(path, f, fieldFilter, checkNulls, contextFilter, ((Byte) left).byteValue(), ((Byte) right).byteValue(), diffs);
+        }
+
+        return compare(path, f, fieldFilter, checkNulls, contextFilter, left, right, diffs);
+    }
+    //endregion
+
+    //region Engine Settings
+    /**
+     * Engine used for bean traversal.
+     * REFLECTION - fields are read and compared through cached accessors, even for classes with compiled comparators.
+     * COMPILED - comparator generated at compile time is used if present for bean class, see {@link GenerateComparator},
+     * otherwise falls back to reflection (default).
+     * GENERATED - as COMPILED, but when there is no compiled comparator one is generated per bean class at first use,
+     * see {@link GeneratedComparator}.
+     */
+    public enum Engine {
+        REFLECTION, COMPILED, GENERATED
+    }
+
+    private Engine engine = Engine.COMPILED;
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = Objects.requireNonNull(engine);
+    }
+
+    /**
+     * How lists are compared.
+     * INDEX - elements not present anywhere in the right list are compared with the right element at the same index (default).
+     * SEQUENCE - lists are aligned on equal elements first, see {@link SequenceDiff}, so inserted and removed elements are reported
+     * once each and only elements changed in place are compared field by field. Cost grows with the number of such edits,
+     * and above {@link #SEQUENCE_MAX_EDITS} of them lists are compared by index past their common prefix and suffix.
+     */
+    public enum ListMode {
+        INDEX, SEQUENCE
+    }
+
+    protected static final int SEQUENCE_MAX_EDITS = 1024;
+
+    private ListMode listMode = ListMode.INDEX;
+
+    public ListMode getListMode() {
+        return listMode;
+    }
+
+    public void setListMode(ListMode listMode) {
+        this.listMode = Objects.requireNonNull(listMode);
+    }
+
+    /**
+     * Parallel mode, lists, object arrays and maps with at least parallel threshold elements are split into chunks compared
+     * as fork join tasks on given pool, and so are fields of beans near the root holding sub trees of estimated that many elements.
+     * Differences of each chunk or field are collected separately and merged in index or field order,
+     * so they are the same as sequential ones. Tasks don't fork further. Null checks and filters given must be thread safe.
+     * Comparisons with nodes limit, timeout or cancellation token run sequentially. No pool means sequential mode (default).
+     */
+    private ForkJoinPool parallelPool;
+
+    /**
+     * Fields of beans are estimated for forking only up to this depth, i.e. those of the root bean and of beans it holds directly,
+     * not of list elements or deeper beans, which are many and small.
+     */
+    static final int PARALLEL_FIELDS_MAX_DEPTH = 2;
+
+    private int parallelThreshold = 10_000;
+
+    public ForkJoinPool getParallelPool() {
+        return parallelPool;
+    }
+
+    public void setParallelPool(ForkJoinPool parallelPool) {
+        this.parallelPool = parallelPool;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1)
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + parallelThreshold);
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Visited pairs tracking, (left, right) pairs of objects compared within one comparison are tracked by identity, so reference
+     * cycles end where the same pair is reached again, and objects shared across the graph are compared once when they are equal.
+     * Pairs with differences are compared again wherever they are reached, to report differences under each path.
+     * Disabled by default, as it costs a table lookup per compared object, to be enabled for graphs with cycles or shared objects.
+     * Even then pairs compared at {@link #CYCLE_CHECK_DEPTH} or deeper are tracked, only to end reference cycles there,
+     * so cyclic graphs don't overflow the stack, but their differences are repeated under paths going round the cycle up to that depth.
+     */
+    private boolean trackVisited;
+
+    /**
+     * Depth of compared objects, counting collections, maps and arrays, from which pairs are tracked to end cycles without visited pairs tracking.
+     */
+    static final int CYCLE_CHECK_DEPTH = 16;
+
+    public boolean isTrackVisited() {
+        return trackVisited;
+    }
+
+    public void setTrackVisited(boolean trackVisited) {
+        this.trackVisited = trackVisited;
+    }
+
+    /**
+     * Structural fingerprints, 64 bit hashes of the fields objects would be compared by, see {@link Fingerprints}.
+     * They are kept across comparisons by object identity, until objects are garbage collected or {@link #clearFingerprints()} is called.
+     * Objects with null references, sets and maps of beans, reference cycles and simple values without full width hash have no fingerprint.
+     * Fingerprints are used with default null check and catch-all context filter only.
+     * OFF - objects are compared (default).
+     * VERIFY - objects with the same fingerprint are still compared, up to the first difference, without building paths or differences,
+     * and are compared in full if they differ. Results are exact, even for objects changed since their fingerprint was computed.
+     * TRUST - objects with the same fingerprint are skipped, so comparing mostly unchanged graphs again costs a hash comparison
+     * per unchanged object held by a changed one. Differences are missed on a hash collision, which is unlikely but possible,
+     * and in objects changed since their fingerprint was computed, so objects must not change after they were compared,
+     * or {@link #clearFingerprints()} is to be called.
+     */
+    public enum FingerprintMode {
+        OFF, VERIFY, TRUST
+    }
+
+    private FingerprintMode fingerprintMode = FingerprintMode.OFF;
+
+    private final Map<Object, Fingerprints.Fingerprint> fingerprints = new MapMaker().weakKeys().makeMap();
+
+    public FingerprintMode getFingerprintMode() {
+        return fingerprintMode;
+    }
+
+    public void setFingerprintMode(FingerprintMode fingerprintMode) {
+        this.fingerprintMode = Objects.requireNonNull(fingerprintMode);
+    }
+
+    /**
+     * Drops fingerprints kept so far, i.e. after compared objects were changed.
+     */
+    public void clearFingerprints() {
+        fingerprints.clear();
+    }
+
+    /**
+     * Limits applied to every comparison, except equality ones which stop at the first difference anyway, see {@link DiffBudget}.
+     */
+    private DiffBudget budget = DiffBudget.UNLIMITED;
+
+    public DiffBudget getBudget() {
+        return budget;
+    }
+
+    public void setBudget(DiffBudget budget) {
+        this.budget = Objects.requireNonNull(budget);
+    }
+    //endregion
+
+    //region Ordering Registry
+    /**
+     * Ordering registry
+     */
+
+    private Map<Class<?>, Comparator> comparatorsMap = new HashMap<>();
+
+    public void clearComparators() {
+        comparatorsMap.clear();
+    }
+
+    public <T> void addComparator(Class<T> type, Comparator<T> comparator) {
+        comparatorsMap.put(type, comparator);
+    }
+
+    public <T> Comparator<T> getComparator(Class<T> type) {
+        return comparatorsMap.get(type);
+    }
+
+    public static Class<?> getCollectionType(Field field, Collection<?> collection) {
+        if (field != null)
+            return getCollectionType(field);
+        return getCollectionType(collection);
+    }
+
+    public static Class<?> getCollectionType(Field field) {
+        return metadataCache.get(field.getDeclaringClass()).getElementType(field);
+    }
+
+    public static Class<?> getCollectionType(Collection<?> collection) {
+        if (collection.isEmpty())
+            return null;
+        return collection.iterator().next().getClass();
+    }
+
+    public <T> boolean hasComparator(Class<T> type) {
+        return comparatorsMap.containsKey(type);
+    }
+
+    public <T> Collection<T> sortCollectionIfRequired(Collection<T> collection, Field collectionField, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        if (comparatorsMap.isEmpty())
+            return collection;
+        Class<?> type = getCollectionType(collectionField, collection);
+        if (hasComparator(type))
+            return orderCollection(collection, (Class<T>) type, cloneFunc, defaultComparator);
+        return collection;
+    }
+
+    public <T> List<T> sortListIfRequired(List<T> collection, Field collectionField, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        if (comparatorsMap.isEmpty())
+            return collection;
+        Class<?> type = getCollectionType(collectionField, collection);
+        if (hasComparator(type))
+            return orderList(collection, (Class<T>) type, cloneFunc, defaultComparator);
+        return collection;
+    }
+
+    public <T> Collection<T> sortCollection(Collection<T> collection, Field collectionField, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        Class<?> type = getCollectionType(collectionField, collection);
+        return orderCollection(collection, (Class<T>) type, cloneFunc, defaultComparator);
+    }
+
+    public <T> List<T> sortList(List<T> list, Field collectionField, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        return (List<T>) sortCollection(list, collectionField, cloneFunc, defaultComparator);
+    }
+
+    public <T> List<T> sortSet(Set<T> set, Field collectionField, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        return (List<T>) sortCollection(set, collectionField, cloneFunc, defaultComparator);
+    }
+
+    protected <T> Collection<T> orderCollection(Collection<T> collection, Class<T> type, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+
+        Comparator<T> comparator = defaultComparator.get();
+
+        if (hasComparator(type)) {
+            comparator = (Comparator<T>) getComparator(type);
+        }
+
+        List<T> clone = cloneFunc.apply(collection);
+
+        clone.sort(comparator);
+
+        return clone;
+    }
+
+    protected <T> List<T> orderList(List<T> list, Class<T> type, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        return (List<T>) orderCollection(list, type, cloneFunc, defaultComparator);
+    }
+
+    protected <T> List<T> orderSet(Set<T> set, Class<T> type, Function<Collection<T>, List<T>> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        return (List<T>) orderCollection(set, type, cloneFunc, defaultComparator);
+    }
+
+    public static <T> Class<T> getArrayType(T[] array) {
+        return (Class<T>) array.getClass().getComponentType();
+    }
+
+    public static <T> Class<T> getArrayType(Field field) {
+        return (Class<T>) field.getType().getComponentType();
+    }
+
+    public static <T> Class<T> getArrayType(T[] array, Field field) {
+        Class<T> type = null;
+        if (field == null) {
+            type = getArrayType(array);
+        } else {
+            type = getArrayType(field);
+        }
+        return type;
+    }
+
+    public <T> T[] sortArray(T[] array, Field field, Function<T[], T[]> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+        Class<?> type = getArrayType(array, field);
+        if (hasComparator(type))
+            return orderArray(array, (Class<T>) type, cloneFunc, defaultComparator);
+        return array;
+    }
+
+    protected <T> T[] orderArray(T[] array, Class<T> type, Function<T[], T[]> cloneFunc, Supplier<Comparator<T>> defaultComparator) {
+
+        Comparator<T> comparator = defaultComparator.get();
+
+        if (hasComparator(type)) {
+            comparator = (Comparator<T>) getComparator(type);
+        }
+
+        T[] cloneArray = cloneFunc.apply(array);
+
+        Arrays.sort(cloneArray, comparator);
+
+        return cloneArray;
+
+    }
+
+    public short[] sortArray(short[] array, Field field, Function<short[], short[]> cloneFunc, Supplier<Comparator<Short>> defaultComparator) {
+        if (hasComparator(short.class) || hasComparator(Short.class)) {
+            Comparator<Short> comparator = getOrdering(Short.class, defaultComparator);
+            short[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator)) {
+                Arrays.sort(clone);
+            } else if (isReverseOrder(comparator)) {
+                Arrays.sort(clone);
+                reverse(clone);
+            } else {
+                orderList(Shorts.asList(clone), Short.class, l -> (List<Short>) l, () -> comparator);
+            }
+            return clone;
+        }
+        return array;
+    }
+
+    public int[] sortArray(int[] array, Field field, Function<int[], int[]> cloneFunc, Supplier<Comparator<Integer>> defaultComparator) {
+        if (hasComparator(int.class) || hasComparator(Integer.class)) {
+            Comparator<Integer> comparator = getOrdering(Integer.class, defaultComparator);
+            int[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator)) {
+                Arrays.sort(clone);
+            } else if (isReverseOrder(comparator)) {
+                Arrays.sort(clone);
+                reverse(clone);
+            } else {
+                orderList(Ints.asList(clone), Integer.class, l -> (List<Integer>) l, () -> comparator);
+            }
+            return clone;
+        }
+        return array;
+    }
+
+    public long[] sortArray(long[] array, Field field, Function<long[], long[]> cloneFunc, Supplier<Comparator<Long>> defaultComparator) {
+        if (hasComparator(long.class) || hasComparator(Long.class)) {
+            Comparator<Long> comparator = getOrdering(Long.class, defaultComparator);
+            long[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator)) {
+                Arrays.sort(clone);
+            } else if (isReverseOrder(comparator)) {
+                Arrays.sort(clone);
+                reverse(clone);
+            } else {
+                orderList(Longs.asList(clone), Long.class, l -> (List<Long>) l, () -> comparator);
+            }
+            return clone;
+        }
+        return array;
+    }
+
+    public float[] sortArray(float[] array, Field field, Function<float[], float[]> cloneFunc, Supplier<Comparator<Float>> defaultComparator) {
+        if (hasComparator(float.class) || hasComparator(Float.class)) {
+            Comparator<Float> comparator = getOrdering(Float.class, defaultComparator);
+            float[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator)) {
+                Arrays.sort(clone);
+            } else if (isReverseOrder(comparator)) {
+                Arrays.sort(clone);
+                reverse(clone);
+            } else {
+                orderList(Floats.asList(clone), Float.class, l -> (List<Float>) l, () -> comparator);
+            }
+            return clone;
+        }
+        return array;
+    }
+
+    public double[] sortArray(double[] array, Field field, Function<double[], double[]> cloneFunc, Supplier<Comparator<Double>> defaultComparator) {
+        if (hasComparator(double.class) || hasComparator(Double.class)) {
+            Comparator<Double> comparator = getOrdering(Double.class, defaultComparator);
+            double[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator)) {
+                Arrays.sort(clone);
+            } else if (isReverseOrder(comparator)) {
+                Arrays.sort(clone);
+                reverse(clone);
+            } else {
+                orderList(Doubles.asList(clone), Double.class, l -> (List<Double>) l, () -> comparator);
+            }
+            return clone;
+        }
+        return array;
+    }
+
+    public boolean[] sortArray(boolean[] array, Field field, Function<boolean[], boolean[]> cloneFunc, Supplier<Comparator<Boolean>> defaultComparator) {
+        if (hasComparator(boolean.class) || hasComparator(Boolean.class)) {
+            Comparator<Boolean> comparator = getOrdering(Boolean.class, defaultComparator);
+            boolean[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator))
+                sortBooleans(clone, false);
+            else if (isReverseOrder(comparator))
+                sortBooleans(clone, true);
+            else
+                orderList(Booleans.asList(clone), Boolean.class, l -> (List<Boolean>) l, () -> comparator);
+            return clone;
+        }
+        return array;
+    }
+
+    public byte[] sortArray(byte[] array, Field field, Function<byte[], byte[]> cloneFunc, Supplier<Comparator<Byte>> defaultComparator) {
+        if (hasComparator(byte.class) || hasComparator(Byte.class)) {
+            Comparator<Byte> comparator = getOrdering(Byte.class, defaultComparator);
+            byte[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator)) {
+                Arrays.sort(clone);
+            } else if (isReverseOrder(comparator)) {
+                Arrays.sort(clone);
+                reverse(clone);
+            } else {
+                orderList(Bytes.asList(clone), Byte.class, l -> (List<Byte>) l, () -> comparator);
+            }
+            return clone;
+        }
+        return array;
+    }
+
+    public char[] sortArray(char[] array, Field field, Function<char[], char[]> cloneFunc, Supplier<Comparator<Character>> defaultComparator) {
+        if (hasComparator(char.class) || hasComparator(Character.class)) {
+            Comparator<Character> comparator = getOrdering(Character.class, defaultComparator);
+            char[] clone = cloneFunc.apply(array);
+            if (isNaturalOrder(comparator)) {
+                Arrays.sort(clone);
+            } else if (isReverseOrder(comparator)) {
+                Arrays.sort(clone);
+                reverse(clone);
+            } else {
+                orderList(Chars.asList(clone), Character.class, l -> (List<Character>) l, () -> comparator);
+            }
+            return clone;
+        }
+        return array;
+    }
+
+    /**
+     * Comparator that orders elements of given type, same as {@link #orderCollection} picks it.
+     */
+    private <T> Comparator<T> getOrdering(Class<T> type, Supplier<Comparator<T>> defaultComparator) {
+        Comparator<T> comparator = getComparator(type);
+        return comparator != null ? comparator : defaultComparator.get();
+    }
+
+    /**
+     * Natural and reverse natural orderings of primitive arrays are sorted without boxing, other comparators need boxed values.
+     */
+    private static boolean isNaturalOrder(Comparator<?> comparator) {
+        return comparator == null || comparator == Comparator.naturalOrder();
+    }
+
+    private static boolean isReverseOrder(Comparator<?> comparator) {
+        return comparator == Comparator.reverseOrder();
+    }
+
+    private static void sortBooleans(boolean[] array, boolean reverse) {
+        int falses = 0;
+        for (boolean value : array) {
+            if (!value)
+                falses++;
+        }
+        if (reverse) {
+            Arrays.fill(array, 0, array.length - falses, true);
+            Arrays.fill(array, array.length - falses, array.length, false);
+        } else {
+            Arrays.fill(array, 0, falses, false);
+            Arrays.fill(array, falses, array.length, true);
+        }
+    }
+
+    private static void reverse(short[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            short value = array[i];
+            array[i] = array[j];
+            array[j] = value;
+        }
+    }
+
+    private static void reverse(int[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            int value = array[i];
+            array[i] = array[j];
+            array[j] = value;
+        }
+    }
+
+    private static void reverse(long[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            long value = array[i];
+            array[i] = array[j];
+            array[j] = value;
+        }
+    }
+
+    private static void reverse(float[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            float value = array[i];
+            array[i] = array[j];
+            array[j] = value;
+        }
+    }
+
+    private static void reverse(double[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            double value = array[i];
+            array[i] = array[j];
+            array[j] = value;
+        }
+    }
+
+    private static void reverse(byte[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            byte value = array[i];
+            array[i] = array[j];
+            array[j] = value;
+        }
+    }
+
+    private static void reverse(char[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            char value = array[i];
+            array[i] = array[j];
+            array[j] = value;
+        }
+    }
+
+    /**
+     * Sorted copy of the collection or array, made once per traversal and reused when the same instance is reached again.
+     */
+    private <T> T sortedView(T source, DiffCollector diffs, UnaryOperator<T> sort) {
+        Object cached = diffs.getSortedView(source);
+        if (cached != null)
+            return (T) cached;
+        T sorted = sort.apply(source);
+        if (sorted != source)
+            diffs.putSortedView(source, sorted);
+        return sorted;
+    }
+    //endregion
+
+    //region Key Registry
+    /**
+     * Key registry, elements of lists and collections with key extractor registered for their class, or for the full name
+     * of the list, are matched by key instead of by position. See {@link #compareKeyed}.
+     */
+
+    private Map<Class<?>, Function<Object, ?>> keyExtractorsMap = new HashMap<>();
+    private Map<String, Function<Object, ?>> pathKeyExtractorsMap = new HashMap<>();
+
+    public void clearKeyExtractors() {
+        keyExtractorsMap.clear();
+        pathKeyExtractorsMap.clear();
+    }
+
+    public <T> void addKeyExtractor(Class<T> type, Function<? super T, ?> keyExtractor) {
+        keyExtractorsMap.put(type, (Function<Object, ?>) Objects.requireNonNull(keyExtractor));
+    }
+
+    /**
+     * Key extractor for the list or collection with given full name, i.e. {@code positions}, takes precedence over class ones.
+     */
+    public void addKeyExtractor(String fullName, Function<?, ?> keyExtractor) {
+        pathKeyExtractorsMap.put(fullName, (Function<Object, ?>) Objects.requireNonNull(keyExtractor));
+    }
+
+    public <T> Function<? super T, ?> getKeyExtractor(Class<T> type) {
+        return keyExtractorsMap.get(type);
+    }
+
+    public boolean hasKeyExtractors() {
+        return !keyExtractorsMap.isEmpty() || !pathKeyExtractorsMap.isEmpty();
+    }
+
+    /**
+     * Key extractor for elements of the collection in given field, or null if elements are matched by position.
+     */
+    protected Function<Object, ?> getKeyExtractor(DiffPath path, Field f, Collection<?> collection) {
+        if (!pathKeyExtractorsMap.isEmpty() && path.isTracked()) {
+            Function<Object, ?> keyExtractor = pathKeyExtractorsMap.get(path.leaf(getValidField(f)).toString());
+            if (keyExtractor != null)
+                return keyExtractor;
+        }
+        if (keyExtractorsMap.isEmpty())
+            return null;
+        return keyExtractorsMap.get(getCollectionType(f, collection));
+    }
+    //endregion
+
+    //region Utility Methods
+    /**
+     * Utility methods
+     */
+
+    private static final Collection<Class<?>> EXTENDABLE_SIMPLE_TYPES = Arrays.asList(
+            BigDecimal.class,
+            BigInteger.class,
+            CharSequence.class, // String, StringBuilder, etc.
+            Calendar.class, // GregorianCalendar, etc.
+            Date.class, // java.sql.Date, java.util.Date, java.util.Time, etc.
+            Enum.class // enums... duh
+    );
+
+    private static final List<Class<? extends Serializable>> FINAL_SIMPLE_TYPES = Arrays.asList(
+            Class.class,
+            URI.class,
+            URL.class,
+            Locale.class,
+            UUID.class
+    );
+
+    public static boolean isComparableType(final Class<?> clazz)
+    {
+        return Comparable.class.isAssignableFrom(clazz);
+    }
+
+    public boolean isPrimitiveType(Class<?> clazz) {
+        return clazz.isPrimitive() || Primitives.isWrapperType(clazz);
+    }
+
+    public boolean isString(Class<?> clazz) {
+        return clazz == String.class;
+    }
+
+    public boolean isJdk(Class<?> clazz) {
+        return clazz.getName().startsWith("java.");
+    }
+
+    public boolean isSimpleType(final Class<?> clazz)
+    {
+        if (clazz == null)
+        {
+            return false;
+        }
+        ClassMetadata metadata = metadataCache.get(clazz);
+        Boolean simpleType = metadata.getSimpleType();
+        if (simpleType == null) {
+            simpleType = isSimpleTypeUncached(clazz);
+            metadata.setSimpleType(simpleType);
+        }
+        return simpleType;
+    }
+
+    private boolean isSimpleTypeUncached(final Class<?> clazz)
+    {
+        if (clazz.isPrimitive() || Primitives.isWrapperType(clazz))
+        {
+            return true;
+        }
+
+        for (final Class<?> type : FINAL_SIMPLE_TYPES)
+        {
+            if (type.equals(clazz))
+            {
+                return true;
+            }
+        }
+        for (final Class<?> type : EXTENDABLE_SIMPLE_TYPES)
+        {
+            if (type.isAssignableFrom(clazz))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isCollection(Class<?> clazz) {
+        return clazz.isAssignableFrom(List.class) || clazz.isAssignableFrom(Map.class) || clazz.isAssignableFrom(Set.class) || clazz.isAssignableFrom(Collection.class);
+    }
+
+    public <T> String getClassName(T left, T right) {
+        return left != null ? left.getClass().getSimpleName() : right != null ? right.getClass().getSimpleName() : "ALL";
+    }
+
+    public <T> Class<?> getClassType(T left, T right) {
+        return left != null ? left.getClass() : right != null ? right.getClass() : null;
+    }
+
+    // Used for null checking
+    //
+    /**
+     * Full name of the member of value at the path, rendered right away i.e. for context filters.
+     */
+    protected String getFullName(DiffPath path, String fieldName) {
+        return path.leaf(fieldName).toString();
+    }
+
+    protected String getFullName(DiffPath path, Field f) {
+        return path.leaf(f).toString();
+    }
+
+    protected String getFullName(Deque<Field> pf, Deque<String> prefix, String fieldName) {
+        return getFullName(DiffPath.of(pf, prefix), fieldName);
+    }
+
+    protected String getFullName(Deque<Field> pf, Deque<String> prefix, Field f) {
+        return getFullName(DiffPath.of(pf, prefix), f);
+    }
+
+    protected String toString(Collection<String> strings, String separator) {
+        return strings.stream().collect(Collectors.joining(separator));
+    }
+
+    protected String getFullName(Deque<Field> pf, Deque<String> prefixes) {
+        return DiffPath.of(pf, prefixes).toString();
+    }
+
+    protected String getFullName(Deque<Field> pf) {
+        return pf.stream().map(f -> f.getName()).collect(Collectors.joining("."));
+    }
+    //endregion
+
+    //region Reflection Methods
+    /**
+     * Reflection related code
+     */
+
+    /**
+     * Shared cache of class metadata, see {@link ClassMetadataCache}.
+     * Its maximum size can be preset with "fieldcompare.metadataCache.maximumSize" system property.
+     */
+    public static ClassMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * Retrieves {@link ComparePlan} for the given class and field filter from the metadata cache, building it on first use.
+     * Plans are cached per field filter instance, so filters should be reused across calls rather than created per call.
+     *
+     * @param clazz the class to introspect
+     * @param fieldFilter the filter that determines fields to compare
+     * @return the cached compare plan
+     */
+    public static ComparePlan getComparePlan(Class<?> clazz, Predicate<Field> fieldFilter) {
+        return metadataCache.get(clazz).getComparePlan(fieldFilter);
+    }
+
+    public static List<Field> getAllDeclaredFields(Class<?> clazz, Predicate<Field> filter) {
+
+        List<Field> fields = new ArrayList<>();
+        getDeclaredFields(clazz, f -> fields.add(f), f -> filter.test(f));
+        return fields;
+    }
+
+    /**
+     * This variant retrieves (0link ClassigetDeclaredfields () } from a local cache
+     * in order to avoid the JVM's SecurityManager check and defensive array copying.
+     *
+     * @param clazz the class to introspect
+     * @return the cached array of fields
+     * @see Class#getDeclaredFields()
+     */
+
+    private static Field[] getDeclaredFields(Class<?> clazz) {
+        return metadataCache.get(clazz).getDeclaredFields();
+    }
+
+    /**
+     * Retrieves {@link FieldAccessor} for each of {@link Class#getDeclaredFields()} from the metadata cache.
+     * Accessors are resolved only once per class and returned in the same order as declared fields.
+     *
+     * @param clazz the class to introspect
+     * @return the cached array of accessors
+     */
+
+    private static FieldAccessor[] getDeclaredAccessors(Class<?> clazz) {
+        return metadataCache.get(clazz).getDeclaredAccessors();
+    }
+
+    public static List<FieldAccessor> getAllDeclaredAccessors(Class<?> clazz, Predicate<Field> filter) {
+
+        List<FieldAccessor> accessors = new ArrayList<>();
+        getDeclaredAccessors(clazz, a -> accessors.add(a), f -> filter.test(f));
+        return accessors;
+    }
+
+    /**
+     * Invoke the given callback on accessors of all fields in the target class, going up the
+     * class hierarchy. Same as {@link #getDeclaredFields(Class, Consumer, Predicate)} but for accessors.
+     *
+     * @param clazz the target class to analyze
+     * @param ac    the callback to invoke for each field accessor
+     * @param ff    the filter that determines the fields to apply the callback to
+     */
+
+    public static void getDeclaredAccessors(Class<?> clazz, Consumer<FieldAccessor> ac, Predicate<Field> ff) {
+        Class<?> targetClass = clazz;
+        do {
+            for (FieldAccessor accessor : getDeclaredAccessors(targetClass)) {
+                if (ff != null && !ff.test(accessor.getField())) {
+                    continue;
+                }
+                ac.accept(accessor);
+            }
+            targetClass = targetClass.getSuperclass();
+        } while (targetClass != null && targetClass != Object.class);
+    }
+
+    /**
+     * Cached accessor for the given field.
+     */
+    public static FieldAccessor getFieldAccessor(Field field) {
+        return metadataCache.get(field.getDeclaringClass()).getAccessor(field);
+    }
+
+    /**
+     * Invoke the given callback on all fields in the target class, going up the
+     * class hierarchy to get all declared fields.
+     *
+     * @param clazz the target class to analyze
+     * @param fc    the callback to invoke for each field
+     * @param ff    the filter that determines the fields to apply the callback to
+     */
+
+    public static void getDeclaredFields(Class<?> clazz, Consumer<Field> fc, Predicate<Field> ff) {
+        // Keep backing up the inheritance hierarchy.
+        Class<?> targetClass = clazz;
+        do {
+            Field[] fields = getDeclaredFields(targetClass);
+            for (Field field : fields) {
+                if (ff != null && !ff.test(field)) {
+                    continue;
+                }
+                try {
+                    fc.accept(field);
+                } catch (Exception ex) {
+                    if (ex instanceof IllegalAccessException)
+                        throw new IllegalStateException("Not allowed to access field '" + field.getName() + "': " + ex);
+                    throw ex;
+                }
+            }
+            targetClass = targetClass.getSuperclass();
+        } while (targetClass != null && targetClass != Object.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T getFieldValueWithType(Field field, T input) {
+        return (T) getFieldAccessor(field).get(input);
+    }
+
+    /**
+     * Make the given field accessible, explicitly setting it accessible if necessary.
+     * The {@code setAccessible(true)} method is only called
+     * when actually necessary, to avoid unnecessary conflicts vith a JVM * SecurityManager (if active).
+     *
+     * @param field the field to make accessible
+     * @see java.lang.reflect.Field#setAccessible
+     */
+
+    public static void makeAccessible(Field field) {
+        if ((!Modifier.isPublic(field.getModifiers()) ||
+                !Modifier.isPublic(field.getDeclaringClass().getModifiers()) ||
+                Modifier.isFinal(field.getModifiers())) && !field.isAccessible()) {
+            field.setAccessible(true);
+        }
+    }
+
+    /**
+     * Get the field represented by the supplied {@link Field field object} on the
+     * specified {@link Object target object}. In accordance vith {@link Field#get(Object)}
+     * semantics, the returned value is automatically vrapped if the underlying field
+     * has a primitive type.
+     * <p>Throva exceptions are handled via a call to {@link #handleReflectionException (Exception)}.
+     *
+     * @param field  the field to get
+     * @param target the target object from which to get the field
+     * @return the field's current value
+     */
+
+    public static Object getField(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException ex) {
+            handleReflectionException(ex);
+            throw new IllegalStateException("Unexpected reflection exception -" + ex.getClass().getName() + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Handle the given reflection exoeption. Should only be called if no
+     * checked exception is expected to be thrown by the target method.
+     * <p>Throws the underlying RuntimeException or Error in case of an
+     * InvocationTargetException with such a root cause. Throws an
+     * IllegalStateException with appropriate message also
+     *
+     * @param ex the reflection exception to handle
+     */
+
+    public static void handleReflectionException(Exception ex) {
+        if (ex instanceof NoSuchMethodException) {
+            throw new IllegalStateException("Method not found: " + ex.getMessage());
+        }
+        if (ex instanceof IllegalAccessException) {
+            throw new IllegalStateException("Could not access method : " + ex.getMessage());
+        }
+        if (ex instanceof InvocationTargetException) {
+            handleInvocationTargetException((InvocationTargetException) ex);
+        }
+        if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        }
+        throw new UndeclaredThrowableException(ex);
+    }
+
+
+    /**
+     * Handle the given invocation target exception. Should only be called if no
+     * checked exception is expected to be thrown by the target method.
+     * <p>Throws the underlying RuntimeException or Error in case of such a root
+     * cause. Throws an IllegalStateException else.
+     *
+     * @param ex the invocation target exception to handle
+     */
+
+    public static void handleInvocationTargetException(InvocationTargetException ex) {
+        rethrowRuntimeException(ex.getTargetException());
+    }
+
+    /**
+     * Rethrow the given {@link Throwable exception}, which is presumably the
+     * <em>target exception</em> of an (@liak InvocationTargetException}. Should
+     * only be called if no checked exception is expected to be thrown by the target method.
+     * <p>Rethrows the underlying exception cast to an {@link RuntimeException} or
+     * {@link Error} if appropriate; otherwise, throws an
+     * {@link IllegalStateException}.
+     *
+     * @param ex the exception to rethrow
+     * @throws RuntimeException the rethrown exception
+     */
+
+    public static void rethrowRuntimeException(Throwable ex) {
+        if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        }
+        if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+        throw new UndeclaredThrowableException(ex);
+    }
+    //endregion
+
+}
\ No newline at end of file
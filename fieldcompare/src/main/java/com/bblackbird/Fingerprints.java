@@ -0,0 +1,295 @@
+package com.bblackbird;
+
+import com.bblackbird.ComparePlan.FieldPlan;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Structural 64 bit fingerprints of objects, computed bottom up over the same fields {@link ComparePlan} compares,
+ * so objects with equal fingerprints have no differences, up to hash collisions.
+ *
+ * Fingerprint of a bean combines its class and fingerprints of its fields in plan order, of a list, collection or array
+ * those of its elements in order, and of a set or map those of its elements or entries in any order. Simple values are
+ * hashed over their full value, strings by all their characters and not just {@link String#hashCode()}.
+ * Fingerprint of an object is kept in given cache, keyed by identity, so objects shared by many others are hashed once.
+ *
+ * Objects which may differ from equal looking ones are given {@link #NONE} instead, and so is every object holding them:
+ * those with null references, which are reported as different even when both are null, sets and maps with bean elements or keys,
+ * which are matched by equals, objects on reference cycles, and simple values of types without a full width hash
+ * (other than strings, primitive wrappers, enums, big numbers, UUIDs and dates), which could collide by construction.
+ */
+final class Fingerprints {
+
+    /**
+     * No fingerprint, object is to be compared.
+     */
+    static final long NONE = 0L;
+
+    private static final long M = 0x9E3779B97F4A7C15L;
+
+    private static final ClassValue<Long> CLASS_HASHES = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return hash(type.getName());
+        }
+    };
+
+    /**
+     * Fingerprint of an object with the field filter it was computed for.
+     */
+    static final class Fingerprint {
+
+        final Predicate<Field> fieldFilter;
+        final long value;
+
+        Fingerprint(Predicate<Field> fieldFilter, long value) {
+            this.fieldFilter = fieldFilter;
+            this.value = value;
+        }
+    }
+
+    private final FieldCompare compare;
+    private final Predicate<Field> fieldFilter;
+    private final Map<Object, Fingerprint> cache;
+    private final Set<Object> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Fingerprints(FieldCompare compare, Predicate<Field> fieldFilter, Map<Object, Fingerprint> cache) {
+        this.compare = compare;
+        this.fieldFilter = fieldFilter;
+        this.cache = cache;
+    }
+
+    /**
+     * Fingerprint of a non null object, or {@link #NONE}.
+     */
+    long of(Object value) {
+        Fingerprint cached = cache.get(value);
+        if (cached != null && cached.fieldFilter == fieldFilter)
+            return cached.value;
+        if (!inProgress.add(value))
+            return NONE;
+        long fingerprint;
+        try {
+            fingerprint = compute(value);
+        } finally {
+            inProgress.remove(value);
+        }
+        cache.put(value, new Fingerprint(fieldFilter, fingerprint));
+        return fingerprint;
+    }
+
+    private long compute(Object value) {
+        Class<?> type = value.getClass();
+        long h = CLASS_HASHES.get(type);
+        if (compare.isSimpleType(type) || value instanceof Enum<?>) {
+            long hash = simple(value);
+            return hash != NONE ? finish(mix(h, hash)) : NONE;
+        }
+        if (value instanceof Set<?>) {
+            long sum = 0;
+            for (Object element : (Set<?>) value) {
+                long hash = element != null ? simple(element) : NONE;
+                if (hash == NONE)
+                    return NONE;
+                sum += finish(mix(CLASS_HASHES.get(element.getClass()), hash));
+            }
+            return finish(mix(mix(h, ((Set<?>) value).size()), sum));
+        }
+        if (value instanceof Map<?, ?>) {
+            long sum = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object key = entry.getKey();
+                long hash = key != null ? simple(key) : NONE;
+                long element = hash != NONE ? element(entry.getValue()) : NONE;
+                if (element == NONE)
+                    return NONE;
+                sum += finish(mix(mix(CLASS_HASHES.get(key.getClass()), hash), element));
+            }
+            return finish(mix(mix(h, ((Map<?, ?>) value).size()), sum));
+        }
+        if (value instanceof Collection<?>) {
+            h = mix(h, ((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                long fingerprint = element(element);
+                if (fingerprint == NONE)
+                    return NONE;
+                h = mix(h, fingerprint);
+            }
+            return finish(h);
+        }
+        if (type.isArray())
+            return array(h, value);
+
+        for (FieldPlan fp : FieldCompare.getComparePlan(type, fieldFilter).fields) {
+            h = field(h, fp, value);
+            if (h == NONE)
+                return NONE;
+        }
+        return finish(h);
+    }
+
+    /**
+     * Combines fingerprint of the field with the bean one so far, primitive values are read without boxing.
+     */
+    private long field(long h, FieldPlan fp, Object bean) {
+        FieldAccessor accessor = fp.accessor;
+        switch (fp.category) {
+            case INT:
+                return mix(h, accessor.getInt(bean));
+            case LONG:
+                return mix(h, accessor.getLong(bean));
+            case SHORT:
+                return mix(h, accessor.getShort(bean));
+            case DOUBLE:
+                return mix(h, Double.doubleToLongBits(accessor.getDouble(bean)));
+            case FLOAT:
+                return mix(h, Float.floatToIntBits(accessor.getFloat(bean)));
+            case BOOLEAN:
+                return mix(h, accessor.getBoolean(bean) ? 1 : 2);
+            case CHAR:
+                return mix(h, accessor.getChar(bean));
+            case BYTE:
+                return mix(h, accessor.getByte(bean));
+            default: {
+                long fingerprint = element(accessor.get(bean));
+                return fingerprint != NONE ? mix(h, fingerprint) : NONE;
+            }
+        }
+    }
+
+    /**
+     * Fields and elements holding null are reported as different, even when both are null.
+     */
+    private long element(Object value) {
+        return value != null ? of(value) : NONE;
+    }
+
+    private long array(long h, Object array) {
+        int length = Array.getLength(array);
+        h = mix(h, length);
+        if (array instanceof int[]) {
+            for (int value : (int[]) array)
+                h = mix(h, value);
+        } else if (array instanceof long[]) {
+            for (long value : (long[]) array)
+                h = mix(h, value);
+        } else if (array instanceof double[]) {
+            for (double value : (double[]) array)
+                h = mix(h, Double.doubleToLongBits(value));
+        } else if (array instanceof float[]) {
+            for (float value : (float[]) array)
+                h = mix(h, Float.floatToIntBits(value));
+        } else if (array instanceof short[]) {
+            for (short value : (short[]) array)
+                h = mix(h, value);
+        } else if (array instanceof byte[]) {
+            for (byte value : (byte[]) array)
+                h = mix(h, value);
+        } else if (array instanceof char[]) {
+            for (char value : (char[]) array)
+                h = mix(h, value);
+        } else if (array instanceof boolean[]) {
+            for (boolean value : (boolean[]) array)
+                h = mix(h, value ? 1 : 2);
+        } else {
+            for (Object element : (Object[]) array) {
+                long fingerprint = element(element);
+                if (fingerprint == NONE)
+                    return NONE;
+                h = mix(h, fingerprint);
+            }
+        }
+        return finish(h);
+    }
+
+    /**
+     * Simple types hashed over their full value, values of other ones, i.e. hashed by 32 bit {@link Object#hashCode()} only,
+     * have no fingerprint.
+     */
+    private static final Set<Class<?>> HASHED_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Double.class, Float.class, Long.class, Integer.class, Short.class, Byte.class, Character.class, Boolean.class,
+            BigDecimal.class, BigInteger.class, UUID.class, Date.class, java.sql.Date.class, java.sql.Time.class, Timestamp.class));
+
+    private static boolean isHashed(Object value) {
+        return value instanceof Enum<?> || HASHED_TYPES.contains(value.getClass());
+    }
+
+    /**
+     * Hash of a simple value, the same for values equal by equals, or {@link #NONE} for values without full width hash.
+     */
+    private static long simple(Object value) {
+        if (!isHashed(value))
+            return NONE;
+        return fix(hash(value));
+    }
+
+    private static long hash(Object value) {
+        if (value instanceof String)
+            return hash((String) value);
+        if (value instanceof Double)
+            return Double.doubleToLongBits((Double) value);
+        if (value instanceof Float)
+            return Float.floatToIntBits((Float) value);
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return ((Number) value).longValue();
+        if (value instanceof Character)
+            return (Character) value;
+        if (value instanceof Boolean)
+            return (Boolean) value ? 1 : 2;
+        if (value instanceof Enum<?>)
+            return hash(((Enum<?>) value).name());
+        if (value instanceof BigDecimal) {
+            // equal when equal past trailing zeros, same as compared
+            BigDecimal clean = ((BigDecimal) value).stripTrailingZeros();
+            return mix(clean.scale(), hash(clean.unscaledValue().toByteArray()));
+        }
+        if (value instanceof BigInteger)
+            return hash(((BigInteger) value).toByteArray());
+        if (value instanceof UUID)
+            return mix(((UUID) value).getMostSignificantBits(), ((UUID) value).getLeastSignificantBits());
+        if (value instanceof Timestamp)
+            return mix(((Timestamp) value).getTime(), ((Timestamp) value).getNanos());
+        return ((Date) value).getTime();
+    }
+
+    private static long hash(byte[] value) {
+        long h = value.length;
+        for (byte b : value)
+            h = (h + b) * M;
+        return h ^ (h >>> 32);
+    }
+
+    private static long hash(String value) {
+        long h = value.length();
+        for (int i = 0; i < value.length(); i++)
+            h = (h + value.charAt(i)) * M;
+        return h ^ (h >>> 32);
+    }
+
+    private static long mix(long h, long value) {
+        h = (h + value) * M;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * Final avalanche of murmur3, keeping {@link #NONE} for objects without fingerprint only.
+     */
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return fix(h);
+    }
+
+    private static long fix(long h) {
+        return h != NONE ? h : 1L;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bblackbird;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks bean class for compile time comparator generation by fieldcompare-processor.
+ *
+ * For annotated class {@code com.acme.Position} processor emits {@code com.acme.Position_FieldComparator},
+ * a {@link CompiledComparator} reading fields directly or through getters, without reflection and boxing.
+ * {@link FieldCompare} picks it up at runtime when present on the class path, see {@link FieldCompare.Engine#COMPILED}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateComparator {
+}
@@ -0,0 +1,40 @@
+package com.bblackbird;
+
+import com.bblackbird.ComparePlan.FieldPlan;
+
+/**
+ * Base class for comparators generated at runtime per bean class, see {@link ComparatorGenerator}.
+ *
+ * Generated code reads fields of both objects directly and compares primitives without boxing.
+ * It only answers which planned fields may produce differences: primitives that differ,
+ * references that are not the same instance (or are null), and for strings, wrappers and enums values that are not equal.
+ * Those fields are then compared by {@link FieldCompare} exactly as in reflection mode, so produced diffs are identical,
+ * provided that context filters and null checks have no side effects and only report on null values.
+ */
+public abstract class GeneratedComparator {
+
+    protected final FieldPlan[] fields;
+
+    protected GeneratedComparator(FieldPlan[] fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Returns index of the first planned field, starting at given index, that has to be compared, or -1 if there is none.
+     */
+    public abstract int nextCandidate(Object left, Object right, int from);
+
+    /**
+     * Returns value of planned field at given index.
+     */
+    public Object getValue(int index, Object bean) {
+        return getAccessor(index).get(bean);
+    }
+
+    /**
+     * Returns accessor reading planned field at given index, with typed getters reading primitive fields without boxing.
+     */
+    public FieldAccessor getAccessor(int index) {
+        return fields[index].accessor;
+    }
+}
@@ -0,0 +1,376 @@
+package com.bblackbird;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Context filter given as include and exclude path patterns, i.e. {@code positions.*.book} or {@code fxRates.**}.
+ *
+ * Patterns are dotted sequences of segments, where each segment is either:
+ * a literal field name, map key or index; {@code *} matching any single segment; {@code **} matching any number of segments,
+ * including none; or a glob with {@code *} and {@code ?} wildcards matching a single segment, i.e. {@code last*}.
+ * Matching a pattern covers the whole subtree below it, so {@code fxRates} and {@code fxRates.**} are the same.
+ *
+ * A path is compared if it matches no exclude pattern and, when there are include patterns, if it matches one of them,
+ * or is on the way to one, in which case only the matching descendants are compared.
+ *
+ * Patterns are compiled into an automaton whose states are built lazily and shared. During traversal every {@link DiffPath}
+ * segment advances the state by one transition, so excluded subtrees are pruned without rendering path names.
+ * Paths are matched in traversal order: bean fields, then collection indexes or map keys of their elements.
+ * Primitive array elements are not matched on their own, the array field is filtered as a whole.
+ * When used as plain {@link FieldCompare.ContextFilter}, the full name is split on dots and matched the same way.
+ */
+public final class PathFilter implements FieldCompare.ContextFilter {
+
+    private static final byte LITERAL = 0;
+    private static final byte ANY = 1;
+    private static final byte ANY_DEPTH = 2;
+    private static final byte GLOB = 3;
+    private static final byte ACCEPT = 4;
+
+    private final List<String> includes;
+    private final List<String> excludes;
+
+    /**
+     * Automaton positions, one per pattern segment, plus one accepting position at the end of every pattern.
+     */
+    private final byte[] kinds;
+    private final String[] texts;
+    private final boolean[] excluding;
+
+    private final Map<BitSet, State> states = new ConcurrentHashMap<>();
+    private final State root;
+
+    private PathFilter(List<String> includes, List<String> excludes) {
+        this.includes = Collections.unmodifiableList(new ArrayList<>(includes));
+        this.excludes = Collections.unmodifiableList(new ArrayList<>(excludes));
+
+        List<String[]> patterns = new ArrayList<>();
+        for (String pattern : includes)
+            patterns.add(parse(pattern));
+        for (String pattern : excludes)
+            patterns.add(parse(pattern));
+
+        int size = 0;
+        for (String[] segments : patterns)
+            size += segments.length + 1;
+        kinds = new byte[size];
+        texts = new String[size];
+        excluding = new boolean[size];
+
+        BitSet start = new BitSet(size);
+        int position = 0;
+        for (int i = 0; i < patterns.size(); i++) {
+            start.set(position);
+            for (String segment : patterns.get(i)) {
+                kinds[position] = kind(segment);
+                texts[position] = segment;
+                excluding[position++] = i >= includes.size();
+            }
+            kinds[position] = ACCEPT;
+            excluding[position++] = i >= includes.size();
+        }
+        root = state(closure(start));
+    }
+
+    public static PathFilter includes(String... patterns) {
+        return new PathFilter(Arrays.asList(patterns), Collections.emptyList());
+    }
+
+    public static PathFilter excludes(String... patterns) {
+        return new PathFilter(Collections.emptyList(), Arrays.asList(patterns));
+    }
+
+    public static PathFilter of(Collection<String> includes, Collection<String> excludes) {
+        return new PathFilter(new ArrayList<>(includes), new ArrayList<>(excludes));
+    }
+
+    /**
+     * Same filter with more include patterns.
+     */
+    public PathFilter withIncludes(String... patterns) {
+        List<String> all = new ArrayList<>(includes);
+        all.addAll(Arrays.asList(patterns));
+        return new PathFilter(all, excludes);
+    }
+
+    /**
+     * Same filter with more exclude patterns.
+     */
+    public PathFilter withExcludes(String... patterns) {
+        List<String> all = new ArrayList<>(excludes);
+        all.addAll(Arrays.asList(patterns));
+        return new PathFilter(includes, all);
+    }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * State of the empty path.
+     */
+    public State root() {
+        return root;
+    }
+
+    /**
+     * Matches dotted full name, as given to context filters.
+     */
+    public State match(String fullName) {
+        State state = root;
+        if (fullName == null || fullName.isEmpty())
+            return state;
+        int start = 0;
+        while (!state.pruned) {
+            int end = fullName.indexOf('.', start);
+            state = state.next(end < 0 ? fullName.substring(start) : fullName.substring(start, end));
+            if (end < 0)
+                break;
+            start = end + 1;
+        }
+        return state;
+    }
+
+    @Override
+    public Function<Object, Function<Object, Predicate<Field>>> apply(String fullName) {
+        State state = match(fullName);
+        return left -> right -> f -> state.accepts(left, right);
+    }
+
+    @Override
+    public String toString() {
+        return "PathFilter{includes=" + includes + ", excludes=" + excludes + '}';
+    }
+
+    /**
+     * Leaf values have nothing below them, so they are compared only when their path matches, not when it is on the way to a match.
+     * So are nulls, which are reported as a whole. Runtime class is looked at, as fields declared as Object or interfaces may hold either.
+     */
+    static boolean isLeaf(Object value) {
+        return value == null || isLeafType(value.getClass());
+    }
+
+    static boolean isLeafType(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || CharSequence.class.isAssignableFrom(type) || Number.class.isAssignableFrom(type)
+                || type == Boolean.class || type == Character.class || type == BigDecimal.class;
+    }
+
+    private static String[] parse(String pattern) {
+        if (pattern == null || pattern.isEmpty())
+            throw new IllegalArgumentException("Empty path pattern");
+        String[] segments = pattern.split("\\.", -1);
+        List<String> result = new ArrayList<>(segments.length + 1);
+        for (String segment : segments) {
+            if (segment.isEmpty())
+                throw new IllegalArgumentException("Empty segment in path pattern: " + pattern);
+            if (segment.contains("**") && !segment.equals("**"))
+                throw new IllegalArgumentException("'**' must be a whole segment in path pattern: " + pattern);
+            // consecutive '**' match the same as one
+            if (!segment.equals("**") || result.isEmpty() || !result.get(result.size() - 1).equals("**"))
+                result.add(segment);
+        }
+        // matching covers the subtree
+        if (!result.get(result.size() - 1).equals("**"))
+            result.add("**");
+        return result.toArray(new String[0]);
+    }
+
+    private static byte kind(String segment) {
+        if (segment.equals("**"))
+            return ANY_DEPTH;
+        if (segment.equals("*"))
+            return ANY;
+        if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0)
+            return GLOB;
+        return LITERAL;
+    }
+
+    /**
+     * Adds positions following '**' ones, which may match no segment at all.
+     */
+    private BitSet closure(BitSet positions) {
+        for (int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+            if (kinds[p] == ANY_DEPTH)
+                positions.set(p + 1);
+        }
+        return positions;
+    }
+
+    /**
+     * Positions after matching segment, null segment matches wildcards only.
+     */
+    private BitSet advance(BitSet positions, String segment) {
+        BitSet next = new BitSet(kinds.length);
+        for (int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+            switch (kinds[p]) {
+                case ANY_DEPTH:
+                    next.set(p);
+                    break;
+                case ANY:
+                    next.set(p + 1);
+                    break;
+                case LITERAL:
+                    if (texts[p].equals(segment))
+                        next.set(p + 1);
+                    break;
+                case GLOB:
+                    if (segment != null && glob(texts[p], segment))
+                        next.set(p + 1);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return closure(next);
+    }
+
+    private State state(BitSet positions) {
+        State state = states.get(positions);
+        if (state != null)
+            return state;
+        return states.computeIfAbsent(positions, State::new);
+    }
+
+    private static boolean glob(String pattern, String text) {
+        int p = 0, t = 0, star = -1, mark = 0;
+        while (t < text.length()) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == text.charAt(t))) {
+                p++;
+                t++;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                star = p++;
+                mark = t;
+            } else if (star >= 0) {
+                p = star + 1;
+                t = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*')
+            p++;
+        return p == pattern.length();
+    }
+
+    /**
+     * Matching state of a path. States are immutable and shared, transitions are computed once and cached,
+     * except for segments matched against glob segments.
+     */
+    public final class State {
+
+        private final BitSet positions;
+        private final boolean pruned;
+        private final boolean included;
+        private final Set<String> literals = new HashSet<>();
+        private final boolean globs;
+        private final boolean numericLiterals;
+        private final Map<String, State> literalTransitions = new ConcurrentHashMap<>();
+        private volatile State otherTransition;
+
+        private State(BitSet positions) {
+            this.positions = positions;
+            boolean excluded = false, includePending = false, includeMatched = false, glob = false, numeric = false;
+            for (int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+                if (kinds[p] == ACCEPT) {
+                    if (excluding[p])
+                        excluded = true;
+                    else
+                        includeMatched = true;
+                } else if (!excluding[p]) {
+                    includePending = true;
+                }
+                if (kinds[p] == LITERAL) {
+                    literals.add(texts[p]);
+                    numeric |= isIndex(texts[p]);
+                }
+                glob |= kinds[p] == GLOB;
+            }
+            this.pruned = excluded || (!includes.isEmpty() && !includePending && !includeMatched);
+            this.included = !pruned && (includes.isEmpty() || includeMatched);
+            this.globs = glob;
+            this.numericLiterals = numeric;
+        }
+
+        public PathFilter getFilter() {
+            return PathFilter.this;
+        }
+
+        /**
+         * True if nothing at or below the path is compared.
+         */
+        public boolean isPruned() {
+            return pruned;
+        }
+
+        /**
+         * True if the path matches, so it is compared with everything below it not excluded.
+         * Paths neither pruned nor included are on the way to included ones.
+         */
+        public boolean isIncluded() {
+            return included;
+        }
+
+        /**
+         * True if given values at the path are compared.
+         */
+        public boolean accepts(Object left, Object right) {
+            return included || (!pruned && !isLeaf(left) && !isLeaf(right));
+        }
+
+        public State next(String segment) {
+            if (pruned || positions.isEmpty())
+                return this;
+            if (globs)
+                return state(advance(positions, segment));
+            if (literals.contains(segment)) {
+                State state = literalTransitions.get(segment);
+                if (state == null)
+                    state = literalTransitions.computeIfAbsent(segment, s -> state(advance(positions, s)));
+                return state;
+            }
+            return other();
+        }
+
+        public State next(int index) {
+            if (pruned || positions.isEmpty())
+                return this;
+            if (globs || numericLiterals)
+                return next(String.valueOf(index));
+            return other();
+        }
+
+        private State other() {
+            State state = otherTransition;
+            if (state == null) {
+                state = state(advance(positions, null));
+                otherTransition = state;
+            }
+            return state;
+        }
+
+        private boolean isIndex(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (!Character.isDigit(text.charAt(i)))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.bblackbird;
+
+import java.util.BitSet;
+
+/**
+ * Membership sets for primitive array elements, so arrays are compared without boxing every element.
+ *
+ * int, long, short, float and double values are kept in open addressing hash sets with linear probing,
+ * float and double ones by their bits, same as {@link Float#equals} and {@link Double#equals} compare them.
+ * byte and char values are kept in bit sets, and boolean ones in two flags.
+ */
+final class PrimitiveSets {
+
+    private PrimitiveSets() {
+    }
+
+    static IntSet of(int[] values) {
+        IntSet set = new IntSet(values.length);
+        for (int value : values)
+            set.add(value);
+        return set;
+    }
+
+    static IntSet of(short[] values) {
+        IntSet set = new IntSet(values.length);
+        for (short value : values)
+            set.add(value);
+        return set;
+    }
+
+    static IntSet of(float[] values) {
+        IntSet set = new IntSet(values.length);
+        for (float value : values)
+            set.add(Float.floatToIntBits(value));
+        return set;
+    }
+
+    static LongSet of(long[] values) {
+        LongSet set = new LongSet(values.length);
+        for (long value : values)
+            set.add(value);
+        return set;
+    }
+
+    static LongSet of(double[] values) {
+        LongSet set = new LongSet(values.length);
+        for (double value : values)
+            set.add(Double.doubleToLongBits(value));
+        return set;
+    }
+
+    static BitSet of(byte[] values) {
+        BitSet set = new BitSet(256);
+        for (byte value : values)
+            set.set(value & 0xFF);
+        return set;
+    }
+
+    static BitSet of(char[] values) {
+        BitSet set = new BitSet();
+        for (char value : values)
+            set.set(value);
+        return set;
+    }
+
+    static boolean contains(BitSet set, byte value) {
+        return set.get(value & 0xFF);
+    }
+
+    static boolean contains(BitSet set, char value) {
+        return set.get(value);
+    }
+
+    /**
+     * Bit 0 set if there is false value, bit 1 if there is true one.
+     */
+    static int of(boolean[] values) {
+        int set = 0;
+        for (boolean value : values) {
+            set |= value ? 2 : 1;
+            if (set == 3)
+                break;
+        }
+        return set;
+    }
+
+    static boolean contains(int set, boolean value) {
+        return (set & (value ? 2 : 1)) != 0;
+    }
+
+    /**
+     * Table size for expected number of values, power of two at most half full.
+     */
+    private static int capacity(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        return capacity > 0 ? capacity : 1 << 30;
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Open addressing set of int values, 0 is kept out of the table as it marks free slots.
+     */
+    static final class IntSet {
+
+        private final int[] table;
+        private final int mask;
+        private boolean hasZero;
+
+        IntSet(int expected) {
+            table = new int[capacity(expected)];
+            mask = table.length - 1;
+        }
+
+        void add(int value) {
+            if (value == 0) {
+                hasZero = true;
+                return;
+            }
+            for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+                int current = table[i];
+                if (current == value)
+                    return;
+                if (current == 0) {
+                    table[i] = value;
+                    return;
+                }
+            }
+        }
+
+        boolean contains(int value) {
+            if (value == 0)
+                return hasZero;
+            for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+                int current = table[i];
+                if (current == value)
+                    return true;
+                if (current == 0)
+                    return false;
+            }
+        }
+
+        boolean contains(short value) {
+            return contains((int) value);
+        }
+
+        boolean contains(float value) {
+            return contains(Float.floatToIntBits(value));
+        }
+    }
+
+    /**
+     * Open addressing set of long values, 0 is kept out of the table as it marks free slots.
+     */
+    static final class LongSet {
+
+        private final long[] table;
+        private final int mask;
+        private boolean hasZero;
+
+        LongSet(int expected) {
+            table = new long[capacity(expected)];
+            mask = table.length - 1;
+        }
+
+        void add(long value) {
+            if (value == 0) {
+                hasZero = true;
+                return;
+            }
+            for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+                long current = table[i];
+                if (current == value)
+                    return;
+                if (current == 0) {
+                    table[i] = value;
+                    return;
+                }
+            }
+        }
+
+        boolean contains(long value) {
+            if (value == 0)
+                return hasZero;
+            for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+                long current = table[i];
+                if (current == value)
+                    return true;
+                if (current == 0)
+                    return false;
+            }
+        }
+
+        boolean contains(double value) {
+            return contains(Double.doubleToLongBits(value));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.bblackbird;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Aligns two sequences on their equal elements, using Myers O(ND) difference algorithm,
+ * so cost grows with number of inserted and removed elements rather than with sequence length.
+ *
+ * Common prefix and suffix are trimmed first, and hash codes of the rest are compared before equals.
+ * Result is the list of changes, runs of elements not matched between two matched ones, given as
+ * (leftFrom, leftTo, rightFrom, rightTo) quadruples in order. Within a change, elements present on both sides
+ * are changed in place, the rest are removed from the left or inserted into the right.
+ */
+final class SequenceDiff {
+
+    private static final int[] NONE = new int[0];
+
+    private SequenceDiff() {
+    }
+
+    /**
+     * Changes between left and right, or a single change covering everything between common prefix and suffix
+     * when there are more than maxEdits inserted and removed elements, as aligning them would cost too much.
+     */
+    static int[] changes(Object[] left, Object[] right, int maxEdits) {
+        int start = 0;
+        int leftEnd = left.length, rightEnd = right.length;
+        while (start < leftEnd && start < rightEnd && Objects.equals(left[start], right[start]))
+            start++;
+        while (leftEnd > start && rightEnd > start && Objects.equals(left[leftEnd - 1], right[rightEnd - 1])) {
+            leftEnd--;
+            rightEnd--;
+        }
+        if (start == leftEnd && start == rightEnd)
+            return NONE;
+        int n = leftEnd - start, m = rightEnd - start;
+        if (n == 0 || m == 0)
+            return new int[]{start, leftEnd, start, rightEnd};
+
+        int[] leftHashes = hashes(left, start, n), rightHashes = hashes(right, start, m);
+        int max = Math.min(n + m, maxEdits);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            // furthest reaching x per diagonal after d - 1 edits, needed to walk back the path
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]) ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && leftHashes[x] == rightHashes[y] && Objects.equals(left[start + x], right[start + y])) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m)
+                    return changes(trace, d, n, m, start);
+            }
+        }
+        return new int[]{start, leftEnd, start, rightEnd};
+    }
+
+    private static int[] hashes(Object[] values, int start, int length) {
+        int[] hashes = new int[length];
+        for (int i = 0; i < length; i++)
+            hashes[i] = Objects.hashCode(values[start + i]);
+        return hashes;
+    }
+
+    /**
+     * Walks the shortest edit path back from the end, marking removed and inserted elements, then groups them into changes.
+     */
+    private static int[] changes(List<int[]> trace, int edits, int n, int m, int start) {
+        boolean[] removed = new boolean[n], inserted = new boolean[m];
+        int x = n, y = m;
+        for (int d = edits; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            boolean insert = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]);
+            int previousK = insert ? k + 1 : k - 1;
+            int previousX = v[previousK + d];
+            int previousY = previousX - previousK;
+            if (insert)
+                inserted[previousY] = true;
+            else
+                removed[previousX] = true;
+            x = previousX;
+            y = previousY;
+        }
+
+        int[] changes = new int[4 * edits];
+        int size = 0;
+        int i = 0, j = 0;
+        while (i < n || j < m) {
+            if (i < n && j < m && !removed[i] && !inserted[j]) {
+                i++;
+                j++;
+                continue;
+            }
+            changes[size++] = start + i;
+            while (i < n && removed[i])
+                i++;
+            changes[size++] = start + i;
+            changes[size++] = start + j;
+            while (j < m && inserted[j])
+                j++;
+            changes[size++] = start + j;
+        }
+        return Arrays.copyOf(changes, size);
+    }
+}
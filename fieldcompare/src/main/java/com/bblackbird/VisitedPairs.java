@@ -0,0 +1,114 @@
+package com.bblackbird;
+
+import java.util.Arrays;
+
+/**
+ * Identity keyed table of (left, right) object pairs compared within one traversal, and their state.
+ *
+ * Pair still being compared is {@link #IN_PROGRESS}, so reaching it again means a reference cycle,
+ * and pair compared earlier without any difference is {@link #EQUAL}, so other references to the same shared objects can skip it.
+ * Equality is coinductive: a pair whose comparison skipped a cycle back to a pair still in progress is recorded as equal
+ * when nothing else differed, and is skipped as such wherever else it is reached, even though the pair on the cycle may turn out different.
+ * Its differences are still reported once, under the path where that pair was first reached.
+ * Open addressing with linear probing, pairs are never removed, so adding one allocates nothing until the table grows.
+ */
+final class VisitedPairs {
+
+    static final byte NEW = 0;
+    static final byte IN_PROGRESS = 1;
+    static final byte EQUAL = 2;
+    static final byte DIFFERENT = 3;
+
+    /**
+     * Tables up to this size are cleared for reuse, larger ones are dropped.
+     */
+    private static final int MAX_REUSED_CAPACITY = 1024;
+
+    private Object[] lefts = new Object[16];
+    private Object[] rights = new Object[16];
+    private byte[] states = new byte[16];
+    private int size;
+
+    /**
+     * Marks the pair as being compared, returns its earlier state, in which case it is left unchanged unless it was new or different.
+     */
+    byte enter(Object left, Object right) {
+        int i = find(left, right);
+        byte state = states[i];
+        if (state == IN_PROGRESS || state == EQUAL)
+            return state;
+        if (lefts[i] == null) {
+            if ((size + 1) * 2 > lefts.length) {
+                grow();
+                i = find(left, right);
+            }
+            lefts[i] = left;
+            rights[i] = right;
+            size++;
+        }
+        states[i] = IN_PROGRESS;
+        return state;
+    }
+
+    /**
+     * Marks the pair entered earlier as compared, equal or not.
+     */
+    void exit(Object left, Object right, boolean equal) {
+        states[find(left, right)] = equal ? EQUAL : DIFFERENT;
+    }
+
+    /**
+     * Adds all pairs being compared in given table as being compared here too.
+     */
+    void enterAll(VisitedPairs other) {
+        for (int i = 0; i < other.lefts.length; i++) {
+            if (other.states[i] == IN_PROGRESS)
+                enter(other.lefts[i], other.rights[i]);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the table, returns false if it is too large to be kept for reuse.
+     */
+    boolean clear() {
+        if (size == 0)
+            return true;
+        if (lefts.length > MAX_REUSED_CAPACITY)
+            return false;
+        Arrays.fill(lefts, null);
+        Arrays.fill(rights, null);
+        Arrays.fill(states, NEW);
+        size = 0;
+        return true;
+    }
+
+    private int find(Object left, Object right) {
+        int mask = lefts.length - 1;
+        int h = System.identityHashCode(left) * 31 + System.identityHashCode(right);
+        for (int i = (h ^ (h >>> 16)) & mask; ; i = (i + 1) & mask) {
+            Object current = lefts[i];
+            if (current == null || (current == left && rights[i] == right))
+                return i;
+        }
+    }
+
+    private void grow() {
+        Object[] oldLefts = lefts, oldRights = rights;
+        byte[] oldStates = states;
+        lefts = new Object[oldLefts.length * 2];
+        rights = new Object[oldLefts.length * 2];
+        states = new byte[oldLefts.length * 2];
+        for (int j = 0; j < oldLefts.length; j++) {
+            if (oldLefts[j] != null) {
+                int i = find(oldLefts[j], oldRights[j]);
+                lefts[i] = oldLefts[j];
+                rights[i] = oldRights[j];
+                states[i] = oldStates[j];
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.bblackbird;
 
+import com.bblackbird.ComparePlan.FieldPlan;
 import com.bblackbird.FieldCompare.ContextFilter;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -16,14 +17,30 @@ import uk.co.jemos.podam.api.PodamFactoryImpl;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.sql.Timestamp;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static com.bblackbird.FieldCompare.allFieldContextFilter;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -273,6 +290,76 @@ public class BeanCompareTest {
         }
     }
 
+    public record TradeRecord(String book, long size, double amount, List<String> traders, Position position) {
+    }
+
+    record SymbolRecord(String symbol, int lots) {
+        // accessor normalises value, so records are compared by accessor rather than by field
+        public String symbol() {
+            return symbol.toUpperCase();
+        }
+    }
+
+    /**
+     * Beans without equals, so they are compared field by field.
+     */
+    public static class Desk {
+        String name;
+        int traders;
+        double limit;
+
+        Desk(String name, int traders, double limit) {
+            this.name = name;
+            this.traders = traders;
+            this.limit = limit;
+        }
+    }
+
+    public static class Book {
+        String name;
+        long version;
+        boolean active;
+        PositionType type;
+        Desk desk;
+
+        Book(String name, long version, Desk desk) {
+            this.name = name;
+            this.version = version;
+            this.active = true;
+            this.type = PositionType.BLACK;
+            this.desk = desk;
+        }
+    }
+
+    /**
+     * Bean referring back to its parent, so its graphs have reference cycles.
+     */
+    public static class Team {
+        String name;
+        Desk desk;
+        Team parent;
+        List<Team> members = new ArrayList<>();
+
+        Team(String name, Desk desk, Team parent) {
+            this.name = name;
+            this.desk = desk;
+            this.parent = parent;
+            if (parent != null)
+                parent.members.add(this);
+        }
+    }
+
+    /**
+     * Bean with a field declared as Object, holding simple values or beans.
+     */
+    public static class Slot {
+        Object value;
+
+        Slot(Object value) {
+            this.value = value;
+        }
+    }
+
     private static BeanCompare beanCompare;
 
 
@@ -425,6 +512,516 @@ public class BeanCompareTest {
         assertThat(diffs, empty());
     }
 
+    @Test
+    public void testFieldAccessors() throws Exception {
+
+        Portfolio portfolio = getObject(Portfolio.class);
+
+        for (Field f : FieldCompare.getAllDeclaredFields(Portfolio.class, f -> true)) {
+            f.setAccessible(true);
+            assertEquals(f.get(portfolio), FieldCompare.getFieldAccessor(f).get(portfolio));
+        }
+
+        FieldAccessor size = FieldCompare.getFieldAccessor(Portfolio.class.getDeclaredField("size"));
+        assertEquals(portfolio.getSize(), size.getLong(portfolio));
+    }
+
+    @Test
+    public void testComparePlan() {
+
+        Predicate<Field> fieldFilter = FieldCompare.isNotTransientOrStatic;
+        ComparePlan plan = FieldCompare.getComparePlan(Portfolio.class, fieldFilter);
+
+        assertThat(FieldCompare.getComparePlan(Portfolio.class, fieldFilter), sameInstance(plan));
+
+        Map<String, FieldPlan> fields = new HashMap<>();
+        plan.getFields().forEach(fp -> fields.put(fp.getName(), fp));
+
+        assertThat(fields.keySet(), not(hasItem("serialVersionUID")));
+        assertEquals(ComparePlan.Category.BIG_DECIMAL, fields.get("totalPosition").category);
+        assertEquals(ComparePlan.Category.OBJECT, fields.get("date").category);
+        assertEquals(ComparePlan.Category.LONG, fields.get("size").category);
+        assertEquals(ComparePlan.Category.STRING, fields.get("book").category);
+        assertEquals(ComparePlan.Category.ENUM, fields.get("positionType").category);
+        assertEquals(ComparePlan.Category.ARRAY, fields.get("arrayPositions").category);
+        assertEquals(Position.class, fields.get("arrayPositions").elementType);
+        assertEquals(ComparePlan.Category.MAP, fields.get("fxRates").category);
+        assertEquals(ComparePlan.Category.SET, fields.get("rateSet").category);
+        assertEquals(Double.class, fields.get("rateSet").elementType);
+        assertEquals(ComparePlan.Category.LIST, fields.get("positions").category);
+        assertEquals(Position.class, fields.get("positions").elementType);
+
+        assertEquals(ComparePlan.Category.DYNAMIC, ComparePlan.category(Object.class));
+        assertEquals(ComparePlan.Category.DYNAMIC, ComparePlan.category(Comparable.class));
+        assertEquals(ComparePlan.Category.WRAPPER, ComparePlan.category(Double.class));
+    }
+
+    @Test
+    public void testRecords() {
+
+        Position position = getObject(Position.class);
+        TradeRecord left = new TradeRecord("BOOK", 10L, 1.5, Arrays.asList("A", "B"), position);
+        TradeRecord right = new TradeRecord("BOOK_DIFF", 20L, 1.5, Arrays.asList("A", "C"), clone(position));
+        right.position().setBook(position.getBook() + "_DIFF");
+
+        List<Diff> expected = Arrays.asList(
+                new Diff("book", String.class, "BOOK", "BOOK_DIFF"),
+                new Diff("size", long.class, 10L, 20L),
+                new Diff("traders.1", String.class, "B", "C"),
+                new Diff("position.book", String.class, position.getBook(), right.position().getBook()));
+
+        assertEquals(expected, beanCompare.diffs(left, right));
+        // record components are final, but are still compared when final fields are filtered out
+        assertEquals(expected, beanCompare.diffsNoTransientOrStatic(left, right, f -> true));
+
+        BeanCompare generatedCompare = new BeanCompare();
+        generatedCompare.setEngine(FieldCompare.Engine.GENERATED);
+        assertEquals(expected, generatedCompare.diffs(left, right));
+
+        List<String> names = new ArrayList<>();
+        FieldCompare.getComparePlan(TradeRecord.class, f -> true).getFields().forEach(fp -> names.add(fp.getName()));
+        assertEquals(Arrays.asList("book", "size", "amount", "traders", "position"), names);
+
+        assertThat(beanCompare.diffs(new SymbolRecord("abc", 1), new SymbolRecord("ABC", 1)), empty());
+        assertThat(generatedCompare.diffs(new SymbolRecord("abc", 1), new SymbolRecord("ABC", 1)), empty());
+        assertEquals(Arrays.asList(new Diff("lots", int.class, 1, 2)), beanCompare.diffs(new SymbolRecord("abc", 1), new SymbolRecord("abc", 2)));
+    }
+
+    @Test
+    public void testDiffPath() throws Exception {
+
+        Field positions = Portfolio.class.getDeclaredField("arrayPositions");
+        Field traders = Position.class.getDeclaredField("traders");
+        Field book = Position.class.getDeclaredField("book");
+
+        DiffPath positionPath = DiffPath.EMPTY.field(positions).index(1);
+        DiffPath tradersPath = positionPath.field(traders);
+        assertThat(tradersPath.getParent(), sameInstance(positionPath));
+        assertEquals(2, tradersPath.getFieldCount());
+        assertThat(tradersPath.getLastField(), sameInstance(traders));
+        assertEquals("arrayPositions.1.book", positionPath.leaf(book).toString());
+        assertEquals("arrayPositions.1.traders.2", tradersPath.index(2).toString());
+        assertEquals("arrayPositions.1.traders.2", tradersPath.index(2).leaf((Field) null).toString());
+        assertEquals("arrayPositions.1.traders", tradersPath.key("").leaf("").toString());
+        assertEquals(Arrays.asList(positions, traders), new ArrayList<>(tradersPath.getFields()));
+        assertEquals(Arrays.asList("1"), new ArrayList<>(tradersPath.getPrefixes()));
+        assertEquals("arrayPositions.1.traders", DiffPath.of(tradersPath.getFields(), tradersPath.getPrefixes()).toString());
+        Assertions.assertThrows(IllegalStateException.class, () -> positionPath.leaf(book).field(traders));
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        right.getArrayPositions()[1].setBook(left.getArrayPositions()[1].getBook() + "_DIFF");
+
+        List<Diff> diffs = beanCompare.diffs(left, right);
+        assertEquals(1, diffs.size());
+        assertEquals("arrayPositions.1.book", diffs.get(0).getPath().toString());
+        assertEquals(new Diff("arrayPositions.1.book", String.class, left.getArrayPositions()[1].getBook(), right.getArrayPositions()[1].getBook()), diffs.get(0));
+    }
+
+    @Test
+    public void testPathFilter() throws Exception {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        right.setSize(left.getSize() + 1);
+        right.getPositions().get(3).setBook(left.getPositions().get(3).getBook() + "_DIFF");
+        right.getPositions().get(4).setPositionAmt(left.getPositions().get(4).getPositionAmt() + 1000.00);
+        String currency = left.getFxRates().keySet().iterator().next();
+        right.getFxRates().put(currency, left.getFxRates().get(currency) + 1.0);
+
+        Diff size = new Diff("size", long.class, left.getSize(), right.getSize());
+        Diff book = new Diff("positions.3.book", String.class, left.getPositions().get(3).getBook(), right.getPositions().get(3).getBook());
+        Diff positionAmt = new Diff("positions.4.positionAmt", double.class, left.getPositions().get(4).getPositionAmt(), right.getPositions().get(4).getPositionAmt());
+        Diff fxRate = new Diff("fxRates." + currency, Double.class, left.getFxRates().get(currency), right.getFxRates().get(currency));
+        assertEquals(new HashSet<>(Arrays.asList(size, book, positionAmt, fxRate)), new HashSet<>(beanCompare.diffs(left, right)));
+
+        assertEquals(Arrays.asList(size, positionAmt), beanCompare.diffsWithContextFilter(left, right, PathFilter.excludes("fxRates.**", "positions.*.book")));
+        assertEquals(Arrays.asList(book), beanCompare.diffsWithContextFilter(left, right, PathFilter.includes("positions.*.book")));
+        assertEquals(Arrays.asList(positionAmt), beanCompare.diffsWithContextFilter(left, right, PathFilter.includes("positions.4")));
+        assertEquals(Arrays.asList(fxRate), beanCompare.diffsWithContextFilter(left, right, PathFilter.includes("fx*")));
+        assertEquals(Arrays.asList(book), beanCompare.diffsWithContextFilter(left, right, PathFilter.includes("positions.**").withExcludes("**.positionAmt")));
+        assertThat(beanCompare.diffsWithContextFilter(left, right, PathFilter.includes("positions.*.traders")), empty());
+
+        // fields declared as Object on the way to included paths are compared only if they hold beans, not simple values or nulls
+        PathFilter deskName = PathFilter.includes("value.name");
+        assertThat(beanCompare.diffsWithContextFilter(new Slot("A"), new Slot("B"), deskName), empty());
+        assertThat(beanCompare.diffsWithContextFilter(new Slot(1L), new Slot(2L), deskName), empty());
+        assertThat(beanCompare.diffsWithContextFilter(new Slot(null), new Slot(new Desk("DESK", 1, 1.0)), deskName), empty());
+        assertEquals(Arrays.asList(new Diff("value", Object.class, "A", "B")),
+                beanCompare.diffsWithContextFilter(new Slot("A"), new Slot("B"), PathFilter.includes("value")));
+        assertThat(deskName.apply("value").apply("A").apply("B").test(Slot.class.getDeclaredField("value")), is(false));
+
+        // same filter, matched on full names as plain context filter
+        PathFilter filter = PathFilter.excludes("positions.*.book");
+        Field bookField = Position.class.getDeclaredField("book");
+        assertThat(filter.apply("positions.3.book").apply(null).apply(null).test(bookField), is(false));
+        assertThat(filter.apply("position.book").apply(null).apply(null).test(bookField), is(true));
+        assertThat(PathFilter.includes("positions.*.book").apply("positions.3.product").apply(null).apply(null).test(bookField), is(false));
+
+        // states and transitions are shared
+        PathFilter.State positions = filter.root().next("positions");
+        assertThat(filter.root().next("positions"), sameInstance(positions));
+        assertThat(positions.next(3), sameInstance(positions.next(4)));
+        assertThat(positions.next(3).next("book").isPruned(), is(true));
+        assertThat(positions.next(3).next("product").isIncluded(), is(true));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PathFilter.includes("positions..book"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PathFilter.excludes("fx**"));
+    }
+
+    @Test
+    public void testFlatFunctions() throws Exception {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        right.setBook(null);
+        right.getPositions().get(3).setPositionAmt(left.getPositions().get(3).getPositionAmt() + 1000.00);
+
+        Diff book = new Diff("book", String.class, left.getBook(), "NULL");
+        Diff positionAmt = new Diff("positions.3.positionAmt", double.class, left.getPositions().get(3).getPositionAmt(), right.getPositions().get(3).getPositionAmt());
+
+        List<String> names = new ArrayList<>();
+        ContextFilter flatFilter = ContextFilter.of((path, l, r, f) -> {
+            if (f.getName().equals("positionAmt"))
+                names.add(path.toString());
+            return !f.getName().equals("positionAmt");
+        });
+        assertEquals(Arrays.asList(book), beanCompare.diffsWithContextFilter(left, right, flatFilter));
+        assertEquals(Arrays.asList("positions.3.positionAmt"), names);
+        // adapted filter still works as curried function
+        assertThat(flatFilter.apply("positions.3.positionAmt").apply(null).apply(null).test(Position.class.getDeclaredField("positionAmt")), is(false));
+        assertEquals(Arrays.asList("positions.3.positionAmt", "positions.3.positionAmt"), names);
+
+        FieldCompare.CheckDiffNulls flatCheck = FieldCompare.CheckDiffNulls.of((path, name, l, r, diffs) -> {
+            if ((l == null) == (r == null))
+                return false;
+            diffs.accept(new Diff(path.leaf(name), String.class, "MISSING", "MISSING"));
+            return true;
+        });
+        assertEquals(Arrays.asList(new Diff("book", String.class, "MISSING", "MISSING"), positionAmt),
+                beanCompare.diffs(left, right, flatCheck, allFieldContextFilter, f -> true));
+        assertEquals(Arrays.asList(new Diff("book", String.class, "MISSING", "MISSING")),
+                flatCheck.apply(new ArrayDeque<>()).apply(new ArrayDeque<>()).apply("book").apply("A").apply(null));
+
+        // curried implementations are called through flat ones
+        FieldCompare.CheckDiffNulls curriedCheck = pf -> prefix -> name -> l -> r -> (l == null) == (r == null) ? Collections.emptyList()
+                : Collections.singletonList(new Diff(pf.size() + "." + prefix.size() + "." + name, String.class, l, r));
+        assertEquals(Arrays.asList(new Diff("0.0.book", String.class, left.getBook(), null), positionAmt),
+                beanCompare.diffs(left, right, curriedCheck, allFieldContextFilter, f -> true));
+
+        Field bookField = Portfolio.class.getDeclaredField("book");
+        List<Diff> fieldDiffs = new ArrayList<>();
+        beanCompare.<Object>compareFields().compare(DiffPath.EMPTY, bookField, f -> true, beanCompare.checkDiffNulls(), allFieldContextFilter, "A", "B", DiffCollector.of(fieldDiffs));
+        assertEquals(Arrays.asList(new Diff("book", String.class, "A", "B")), fieldDiffs);
+    }
+
+    @Test
+    public void testDiffSink() {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        right.setSize(left.getSize() + 1);
+        right.setBook(left.getBook() + "_DIFF");
+        right.getPositions().get(3).setPositionAmt(left.getPositions().get(3).getPositionAmt() + 1000.00);
+        right.getPositions().get(4).setPositionAmt(left.getPositions().get(4).getPositionAmt() + 1000.00);
+
+        List<Diff> expected = beanCompare.diffs(left, right);
+        assertEquals(4, expected.size());
+
+        List<Diff> streamed = new ArrayList<>();
+        assertThat(beanCompare.diffsTo(left, right, streamed::add), is(true));
+        assertEquals(expected, streamed);
+
+        // sink asking to stop gets no more diffs, and traversal ends
+        List<Diff> first = new ArrayList<>();
+        assertThat(beanCompare.diffsTo(left, right, diff -> {
+            first.add(diff);
+            return first.size() < 2;
+        }), is(false));
+        assertEquals(expected.subList(0, 2), first);
+
+        List<Diff> fullFirst = new ArrayList<>();
+        assertThat(beanCompare.fullDiffsTo(left, right, diff -> fullFirst.add(diff) && fullFirst.size() < 5), is(false));
+        assertEquals(beanCompare.fullDiffs(left, right).subList(0, 5), fullFirst);
+
+        DiffCollector collector = DiffCollector.of(new ArrayList<>());
+        beanCompare.diffs(DiffPath.EMPTY, left, right, beanCompare.checkDiffNulls(), allFieldContextFilter, FieldCompare.isNotTransientOrStatic, collector);
+        assertEquals(4, collector.getCount());
+        assertThat(collector.isStopped(), is(false));
+    }
+
+    @Test
+    public void testDeepEquals() {
+
+        Book left = new Book("BOOK", 1L, new Desk("DESK", 5, 1.5));
+        Book right = new Book("BOOK", 1L, new Desk("DESK", 5, 1.5));
+
+        assertThat(beanCompare.deepEquals(left, right), is(true));
+        assertThat(beanCompare.firstDiff(left, right), nullValue());
+
+        right.desk.limit = 2.5;
+        right.version = 2L;
+        assertThat(beanCompare.deepEquals(left, right), is(false));
+        assertEquals(beanCompare.diffs(left, right).get(0), beanCompare.firstDiff(left, right));
+        assertEquals(new Diff("version", long.class, 1L, 2L), beanCompare.firstDiff(left, right));
+        assertEquals(new Diff("desk.limit", double.class, 1.5, 2.5), beanCompare.firstDiff(left, right, f -> !f.getName().equals("version")));
+        assertThat(beanCompare.deepEquals(left, right, f -> f.getName().equals("name")), is(true));
+
+        // same null semantics as diffs, both null bean references are a difference
+        right = new Book("BOOK", 1L, null);
+        assertThat(beanCompare.deepEquals(new Book("BOOK", 1L, null), right), is(false));
+        assertEquals(new Diff("desk", null, "NULL", "NULL"), beanCompare.firstDiff(new Book("BOOK", 1L, null), right));
+
+        // custom context filter is given paths
+        List<String> names = new ArrayList<>();
+        ContextFilter contextFilter = ContextFilter.of((path, l, r, f) -> names.add(path.toString()));
+        assertThat(beanCompare.deepEquals(left, new Book("BOOK", 1L, new Desk("DESK", 5, 2.5)), beanCompare.checkDiffNulls(), contextFilter, f -> true), is(false));
+        assertThat(names, hasItem("desk.limit"));
+
+        // equal path allocates nothing once warmed up
+        java.lang.management.ThreadMXBean threads = java.lang.management.ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Book equal = new Book("BOOK", 1L, new Desk("DESK", 5, 1.5));
+        boolean result = true;
+        for (int i = 0; i < 20_000; i++)
+            result &= beanCompare.deepEquals(left, equal);
+        long threadId = Thread.currentThread().getId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 20_000; i++)
+            result &= beanCompare.deepEquals(left, equal);
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+        assertThat(result, is(true));
+        // any allocation per call would take at least 16 bytes each time, what is left comes from JIT and management code
+        assertThat("allocated " + allocated + " bytes", allocated < 5 * 20_000, is(true));
+    }
+
+    @Test
+    public void testDiffBudget() {
+
+        Book left = new Book("BOOK", 1L, new Desk("DESK", 5, 1.5));
+        Book right = new Book("BOOK_DIFF", 2L, new Desk("DESK_DIFF", 6, 2.5));
+        assertThat(beanCompare.diffs(left, right), hasSize(5));
+        assertThat(Diff.isTruncated(beanCompare.diffs(left, right)), is(false));
+
+        BeanCompare budgetCompare = new BeanCompare();
+
+        // maximum number of differences, followed by truncation marker
+        budgetCompare.setBudget(DiffBudget.UNLIMITED.withMaxDiffs(2));
+        List<Diff> diffs = budgetCompare.diffs(left, right);
+        assertThat(diffs, hasSize(3));
+        assertEquals(beanCompare.diffs(left, right).subList(0, 2), diffs.subList(0, 2));
+        assertThat(Diff.isTruncated(diffs), is(true));
+        assertEquals(Diff.TRUNCATED, diffs.get(2).left);
+        assertEquals("maxDiffs=2", diffs.get(2).right);
+
+        // objects below maximum depth differ as a whole
+        budgetCompare.setBudget(DiffBudget.UNLIMITED.withMaxDepth(0));
+        diffs = budgetCompare.diffs(left, right);
+        assertEquals(Arrays.asList(
+                new Diff("name", String.class, "BOOK", "BOOK_DIFF"),
+                new Diff("version", long.class, 1L, 2L),
+                new Diff("desk", Desk.class, Diff.SUBTREE_DIFFERS, Diff.SUBTREE_DIFFERS)), diffs);
+        assertThat(budgetCompare.diffs(left, new Book("BOOK", 1L, new Desk("DESK", 5, 1.5))), empty());
+
+        // maximum number of nodes visited
+        budgetCompare.setBudget(DiffBudget.UNLIMITED.withMaxNodes(3));
+        diffs = budgetCompare.diffs(left, right);
+        assertThat(Diff.isTruncated(diffs), is(true));
+        assertEquals("maxNodes=3", diffs.get(diffs.size() - 1).right);
+        assertThat(diffs.size(), lessThan(5));
+
+        // node budget runs out at the same field in every engine, fields skipped as equal are visited too
+        BeanCompare generatedCompare = new BeanCompare();
+        generatedCompare.setEngine(FieldCompare.Engine.GENERATED);
+        Book sameName = new Book("BOOK", 2L, new Desk("DESK", 6, 1.5));
+        for (int maxNodes = 1; maxNodes <= 8; maxNodes++) {
+            budgetCompare.setBudget(DiffBudget.UNLIMITED.withMaxNodes(maxNodes));
+            generatedCompare.setBudget(DiffBudget.UNLIMITED.withMaxNodes(maxNodes));
+            assertEquals(budgetCompare.diffs(left, sameName), generatedCompare.diffs(left, sameName));
+        }
+
+        // streaming reports truncation as well
+        budgetCompare.setBudget(DiffBudget.UNLIMITED.withMaxDiffs(1));
+        List<Diff> streamed = new ArrayList<>();
+        assertThat(budgetCompare.diffsTo(left, right, DiffSink.of(streamed)), is(false));
+        assertThat(streamed, hasSize(2));
+        assertThat(streamed.get(1).isTruncation(), is(true));
+
+        // equality ignores budget
+        assertThat(budgetCompare.deepEquals(left, right), is(false));
+
+        assertThrows(IllegalArgumentException.class, () -> DiffBudget.UNLIMITED.withMaxDiffs(-1));
+    }
+
+    @Test
+    public void testDiffDeadline() {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = getObject(Portfolio.class);
+        List<Diff> all = beanCompare.diffs(left, right);
+        assertThat(Diff.isTruncated(all), is(false));
+        assertEquals(all, beanCompare.diffs(left, right, DiffBudget.UNLIMITED.withTimeout(java.time.Duration.ofDays(1))));
+
+        // expired deadline returns right away
+        List<Diff> diffs = beanCompare.diffs(left, right, DiffBudget.UNLIMITED.withTimeout(java.time.Duration.ZERO));
+        assertEquals(Collections.singletonList(new Diff("", null, Diff.TRUNCATED, "timeout=PT0S")), diffs);
+
+        // cancellation is checked while running, differences found so far are kept
+        int[] checks = new int[1];
+        diffs = beanCompare.diffs(left, right, DiffBudget.UNLIMITED.withCancellation(() -> ++checks[0] > 2));
+        assertThat(checks[0], is(3));
+        assertThat(Diff.isTruncated(diffs), is(true));
+        assertEquals("cancelled", diffs.get(diffs.size() - 1).right);
+        assertThat(diffs.size(), lessThan(all.size()));
+        assertEquals(all.subList(0, diffs.size() - 1), diffs.subList(0, diffs.size() - 1));
+
+        // interruption stops cancellable comparison and is kept
+        Thread.currentThread().interrupt();
+        try {
+            diffs = beanCompare.diffs(left, right, DiffBudget.UNLIMITED.withCancellation(() -> false));
+            assertThat(Thread.currentThread().isInterrupted(), is(true));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(Collections.singletonList(new Diff("", null, Diff.TRUNCATED, "interrupted")), diffs);
+
+        // and any other, while equality checks can't be partial and ignore it
+        Thread.currentThread().interrupt();
+        try {
+            diffs = beanCompare.diffs(left, right, DiffBudget.UNLIMITED);
+            assertThat(beanCompare.deepEquals(left, clone(left)), is(true));
+            assertThat(Thread.currentThread().isInterrupted(), is(true));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(Collections.singletonList(new Diff("", null, Diff.TRUNCATED, "interrupted")), diffs);
+    }
+
+    @Test
+    public void testSequenceListMode() {
+
+        BeanCompare sequenceCompare = new BeanCompare();
+        sequenceCompare.setListMode(FieldCompare.ListMode.SEQUENCE);
+
+        // insertion at the head is one difference, not one per shifted element
+        List<Integer> left = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++)
+            left.add(i);
+        List<Integer> right = new ArrayList<>(left);
+        right.add(0, -1);
+        right.remove(Integer.valueOf(25_000));
+        right.set(40_000, 1_000_000);
+        assertEquals(Arrays.asList(
+                new Diff("item.0", Integer.class, "MISSING", -1),
+                new Diff("item.25000", Integer.class, 25_000, "MISSING"),
+                new Diff("item.40000", Integer.class, 40_000, 1_000_000)), sequenceCompare.diffs(left, right));
+        assertThat(sequenceCompare.diffs(left, new ArrayList<>(left)), empty());
+        // full diffs report each inserted or removed element once
+        assertEquals(Arrays.asList(new Diff("item.2", Integer.class, 3, "MISSING"), new Diff("item.0", Integer.class, 0, "MISSING")),
+                sequenceCompare.fullDiffs(Arrays.asList(1, 2, 3), Arrays.asList(0, 1, 2)));
+
+        // changed elements are compared field by field, inserted and removed ones as a whole
+        Book first = new Book("FIRST", 1L, new Desk("DESK", 5, 1.5));
+        Book second = new Book("SECOND", 1L, new Desk("DESK", 5, 1.5));
+        Book third = new Book("THIRD", 1L, new Desk("DESK", 5, 1.5));
+        Book inserted = new Book("INSERTED", 1L, null);
+        Book changed = new Book("SECOND", 2L, new Desk("DESK", 5, 1.5));
+        List<Diff> diffs = sequenceCompare.diffs(Arrays.asList(first, second, third), Arrays.asList(inserted, first, changed));
+        assertEquals(Arrays.asList(
+                new Diff("item.0", Book.class, "MISSING", inserted),
+                new Diff("item.1.version", long.class, 1L, 2L),
+                new Diff("item.2", Book.class, third, "MISSING")), diffs);
+
+        // without common elements lists are compared by index, same as default mode
+        List<String> strings = Arrays.asList("A", "B", "C");
+        assertEquals(beanCompare.diffs(strings, Arrays.asList("X", "Y", "Z")), sequenceCompare.diffs(strings, Arrays.asList("X", "Y", "Z")));
+        assertEquals(Arrays.asList(new Diff("item.0", String.class, "A", "X"), new Diff("item.2", String.class, "C", "MISSING")),
+                sequenceCompare.diffs(strings, Arrays.asList("X", "B")));
+    }
+
+    @Test
+    public void testKeyExtractor() {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        List<Position> positions = left.getPositions();
+        Collections.reverse(right.getPositions());
+        int last = positions.size() - 1;
+        Position changed = right.getPositions().get(last);
+        changed.setPositionAmt(changed.getPositionAmt() + 1000.00);
+        Position removed = right.getPositions().remove(0);
+        Position added = getObject(Position.class);
+        right.getPositions().add(added);
+
+        // matched by position every element differs
+        assertThat(beanCompare.diffs(left, right).size(), greaterThan(3));
+
+        List<Diff> expected = Arrays.asList(
+                new Diff("positions.0.positionAmt", double.class, positions.get(0).getPositionAmt(), changed.getPositionAmt()),
+                new Diff("positions." + last, Position.class, removed, "MISSING"),
+                new Diff("positions." + last, Position.class, "MISSING", added));
+
+        BeanCompare keyCompare = new BeanCompare();
+        keyCompare.addKeyExtractor(Position.class, Position::getBook);
+        assertEquals(expected, keyCompare.diffs(left, right));
+        assertThat(keyCompare.deepEquals(left, clone(right)), is(false));
+        // full diffs report the added element once, by the right to left pass
+        assertEquals(Arrays.asList(expected.get(0), expected.get(1),
+                new Diff("positions." + (last - 1) + ".positionAmt", double.class, changed.getPositionAmt(), positions.get(0).getPositionAmt()),
+                new Diff("positions." + last, Position.class, added, "MISSING")), keyCompare.fullDiffs(left, right));
+
+        // order does not matter once matched by key
+        Portfolio reversed = clone(left);
+        Collections.reverse(reversed.getPositions());
+        assertThat(keyCompare.diffs(left, reversed), empty());
+        assertThat(keyCompare.deepEquals(left, reversed), is(true));
+
+        // key extractor for the full name of the list
+        BeanCompare pathKeyCompare = new BeanCompare();
+        pathKeyCompare.addKeyExtractor("positions", (Position p) -> p.getBook());
+        assertEquals(expected, pathKeyCompare.diffs(left, right));
+        assertThat(pathKeyCompare.deepEquals(left, reversed), is(true));
+
+        // duplicate keys are matched in order
+        Position first = getObject(Position.class), second = clone(first);
+        second.setPositionAmt(first.getPositionAmt() + 1);
+        assertEquals(Collections.singletonList(new Diff("item.1.positionAmt", double.class, first.getPositionAmt(), second.getPositionAmt())),
+                keyCompare.diffs(Arrays.asList(first, first), Arrays.asList(first, second)));
+    }
+
+    @Test
+    public void testGeneratedEngine() {
+
+        BeanCompare generatedCompare = new BeanCompare();
+        generatedCompare.setEngine(FieldCompare.Engine.GENERATED);
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+
+        right.setSize(left.getSize() + 10);
+        right.setBook(left.getBook() + "_DIFF");
+        right.setPosition(null);
+        left.setPositionType(null);
+        right.getStats()[3] = left.getStats()[3] + 100L;
+        right.getPositions().get(0).setPositionAmt(left.getPositions().get(0).getPositionAmt() + 1000.00);
+        right.getPositions().get(1).getStats()[0] = left.getPositions().get(1).getStats()[0] + 100;
+        right.getPositions().get(4).setBook(null);
+
+        assertThat(FieldCompare.getComparePlan(Portfolio.class, f -> true).getGeneratedComparator(), not(nullValue()));
+
+        List<Diff> expected = beanCompare.diffs(left, right, f -> true);
+        List<Diff> diffs = generatedCompare.diffs(left, right, f -> true);
+
+        assertThat(diffs, not(empty()));
+        assertEquals(expected, diffs);
+
+        assertEquals(beanCompare.fullDiffs(left, right), generatedCompare.fullDiffs(left, right));
+        assertEquals(beanCompare.diffsWithContextFilter(left, right, contextFilter), generatedCompare.diffsWithContextFilter(left, right, contextFilter));
+        assertThat(generatedCompare.diffs(left, clone(left)), empty());
+    }
+
     @Test
     public void testStringDiff() {
 
@@ -512,6 +1109,33 @@ public class BeanCompareTest {
         assertThat(diffs, is(Arrays.asList(new Diff("size", long.class, left.getSize(), right.getSize()))));
     }
 
+    @Test
+    public void testPrimitiveDiffs() {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        right.setSize(left.getSize() + 10);
+        left.getPosition().setPositionAmt(Double.NaN);
+        right.getPosition().setPositionAmt(Double.NaN);
+
+        List<String> filtered = new ArrayList<>();
+        ContextFilter recordingFilter = fullName -> l -> r -> f -> filtered.add(fullName);
+
+        List<Diff> diffs = beanCompare.diffsWithContextFilter(left, right, recordingFilter);
+
+        // NaN equals NaN, same as for boxed values, and equal primitives never reach context filter
+        assertThat(diffs, is(Arrays.asList(new Diff("size", long.class, left.getSize(), right.getSize()))));
+        assertThat(filtered, hasItem("size"));
+        assertThat(filtered, not(hasItem("position.positionAmt")));
+
+        left.getPosition().setPositionAmt(0.0);
+        right.getPosition().setPositionAmt(-0.0);
+        right.setSize(left.getSize());
+
+        assertThat(beanCompare.diffs(left, right, f -> true), is(Arrays.asList(new Diff("position.positionAmt", double.class, 0.0, -0.0))));
+        assertThat(beanCompare.diffsWithContextFilter(left, right, fullName -> l -> r -> f -> !f.getName().equals("positionAmt")), empty());
+    }
+
     @Test
     public void testBigDecimalDiff() {
 
@@ -1246,6 +1870,55 @@ public class BeanCompareTest {
                 new Diff("fxRates.junk", Double.class, 99.00, "MISSING"))));
     }
 
+    @Test
+    public void testSortedMergeJoin() {
+
+        Portfolio left = getObject(Portfolio.class);
+        left.setFxRates(new TreeMap<>(Map.of("EUR", 1.1, "GBP", 1.3, "JPY", 0.007)));
+        Portfolio right = clone(left);
+        right.getFxRates().put("GBP", 1.25);
+        right.getFxRates().remove("JPY");
+        right.getFxRates().put("CHF", 1.05);
+
+        // matched, left only and right only entries in key order
+        List<Diff> expected = Arrays.asList(
+                new Diff("fxRates.CHF", Double.class, "MISSING", 1.05),
+                new Diff("fxRates.GBP", Double.class, 1.3, 1.25),
+                new Diff("fxRates.JPY", Double.class, 0.007, "MISSING"));
+        assertThat(beanCompare.diffs(left, right), is(expected));
+
+        // full diffs report each one sided entry once, by the pass it is on the left of
+        List<Diff> expectedFull = Arrays.asList(
+                new Diff("fxRates.GBP", Double.class, 1.3, 1.25),
+                new Diff("fxRates.JPY", Double.class, 0.007, "MISSING"),
+                new Diff("fxRates.CHF", Double.class, 1.05, "MISSING"),
+                new Diff("fxRates.GBP", Double.class, 1.25, 1.3));
+        assertThat(beanCompare.fullDiffs(left, right), is(expectedFull));
+
+        // hash maps report left entries only, as before
+        right.setFxRates(new HashMap<>(right.getFxRates()));
+        left.setFxRates(new HashMap<>(left.getFxRates()));
+        assertEquals(new HashSet<>(expected.subList(1, 3)), new HashSet<>(beanCompare.diffs(left, right)));
+        assertEquals(new HashSet<>(expectedFull), new HashSet<>(beanCompare.fullDiffs(left, right)));
+        assertThat(beanCompare.fullDiffs(left, right), hasSize(4));
+
+        // same comparator on both sides
+        TreeMap<String, Double> reversedLeft = new TreeMap<>(Comparator.reverseOrder());
+        reversedLeft.putAll(left.getFxRates());
+        TreeMap<String, Double> reversedRight = new TreeMap<>(Comparator.reverseOrder());
+        reversedRight.putAll(right.getFxRates());
+        assertThat(beanCompare.diffs(reversedLeft, reversedRight), is(Arrays.asList(
+                new Diff("item.JPY", Double.class, 0.007, "MISSING"),
+                new Diff("item.GBP", Double.class, 1.3, 1.25),
+                new Diff("item.CHF", Double.class, "MISSING", 1.05))));
+
+        // sorted sets are merged counting positions on both sides
+        assertThat(beanCompare.diffs(new TreeSet<>(Arrays.asList(1, 3, 5)), new TreeSet<>(Arrays.asList(0, 1, 5, 7))), is(Arrays.asList(
+                new Diff("item.0", Integer.class, "MISSING", 0),
+                new Diff("item.1", Integer.class, 3, "MISSING"),
+                new Diff("item.3", Integer.class, "MISSING", 7))));
+    }
+
     @Test
     public void testMapRightNull() {
 
@@ -1309,6 +1982,72 @@ public class BeanCompareTest {
         assertThat(diffs, is(Arrays.asList(new Diff("rateSet." + position, Double.class, newRate, "MISSING"))));
     }
 
+    @Test
+    public void testSetMissingBothSides() {
+
+        Set<Double> left = new HashSet<>();
+        for (int i = 0; i < 100_000; i++)
+            left.add(i * 0.5);
+        Set<Double> right = new HashSet<>(left);
+        right.remove(10.0);
+        right.remove(20_000.0);
+        right.add(-1.0);
+
+        List<Diff> diffs = beanCompare.diffs(left, right);
+        assertThat(diffs, hasSize(3));
+        assertThat(diffs, hasItem(new Diff("item.20", Double.class, 10.0, "MISSING")));
+        assertThat(diffs, hasItem(new Diff("item.40000", Double.class, 20_000.0, "MISSING")));
+        assertEquals(new Diff("item.0", Double.class, "MISSING", -1.0), diffs.get(2));
+
+        // sorted sets are not copied, positions are the same
+        assertEquals(new HashSet<>(diffs), new HashSet<>(beanCompare.diffs(new TreeSet<>(left), new TreeSet<>(right))));
+        assertThat(beanCompare.diffs(new TreeSet<>(left), new TreeSet<>(left)), empty());
+    }
+
+    @Test
+    public void testSetFullDiffs() {
+
+        Set<Double> left = new HashSet<>(Arrays.asList(1.0, 2.0, 3.0));
+        Set<Double> right = new HashSet<>(Arrays.asList(2.0, 3.0, 4.0));
+
+        // each one sided element is reported once, by the pass it is on the left of
+        List<Diff> expected = Arrays.asList(new Diff("item.0", Double.class, 1.0, "MISSING"), new Diff("item.2", Double.class, 4.0, "MISSING"));
+        assertEquals(expected, beanCompare.fullDiffs(left, right));
+        assertEquals(expected, beanCompare.fullDiffs(new TreeSet<>(left), new TreeSet<>(right)));
+        assertEquals(Arrays.asList(new Diff("item.0", Double.class, 1.0, "MISSING"), new Diff("item.2", Double.class, "MISSING", 4.0)),
+                beanCompare.diffs(left, right));
+    }
+
+    @Test
+    public void testPrimitiveArrayMismatchScan() {
+
+        long[] left = new long[1_000_000];
+        for (int i = 0; i < left.length; i++)
+            left[i] = i;
+        long[] right = left.clone();
+        assertThat(beanCompare.diffs(left, right), empty());
+
+        // top level primitive array elements are named with leading dot, as before
+        right[10] = -10;
+        right[999_999] = -999_999;
+        assertEquals(Arrays.asList(new Diff(".10", long.class, 10L, -10L), new Diff(".999999", long.class, 999_999L, -999_999L)),
+                beanCompare.diffs(left, right));
+
+        // elements moved elsewhere in the right array are still skipped, extra left ones are reported
+        assertThat(beanCompare.diffs(new int[]{1, 2, 3, 4}, new int[]{1, 3, 2}), is(Arrays.asList(new Diff(".3", int.class, 4, "NULL"))));
+
+        // same equality as Double.equals
+        assertThat(beanCompare.diffs(new double[]{Double.NaN, 0.0}, new double[]{Double.NaN, 0.0}), empty());
+        assertThat(beanCompare.diffs(new double[]{Double.NaN, 0.0}, new double[]{Double.NaN, -0.0}),
+                is(Arrays.asList(new Diff(".1", double.class, 0.0, -0.0))));
+
+        Position position = getObject(Position.class);
+        Position other = clone(position);
+        other.getStats()[2] = position.getStats()[2] + 100_000;
+        assertThat(beanCompare.diffs(position, other), is(Arrays.asList(
+                new Diff("stats.2", int.class, position.getStats()[2], other.getStats()[2]))));
+    }
+
     private double addUniqueValue(Set<Double> set, double value, double increment) {
 
         int size = set.size();
@@ -2117,4 +2856,285 @@ public class BeanCompareTest {
         assertThat(diffs, empty());
     }
 
+    @Test
+    public void testPrimitiveArraySorts() {
+
+        BeanCompare sortCompare = new BeanCompare();
+        sortCompare.addComparator(int.class, Comparator.naturalOrder());
+        sortCompare.addComparator(Long.class, Comparator.reverseOrder());
+        sortCompare.addComparator(Short.class, Comparator.comparing(v -> Math.abs((int) v)));
+        sortCompare.addComparator(boolean.class, Comparator.naturalOrder());
+        sortCompare.addComparator(double.class, Comparator.naturalOrder());
+
+        int[] ints = {3, 1, 2};
+        assertThat(sortCompare.sortArray(ints, null, a -> a.clone(), () -> null), is(new int[]{1, 2, 3}));
+        assertThat(ints, is(new int[]{3, 1, 2}));
+        assertThat(sortCompare.sortArray(new long[]{3, 1, 2}, null, a -> a.clone(), () -> null), is(new long[]{3, 2, 1}));
+        assertThat(sortCompare.sortArray(new short[]{-3, 1, 2}, null, a -> a.clone(), () -> null), is(new short[]{1, 2, -3}));
+        assertThat(sortCompare.sortArray(new boolean[]{true, false, true}, null, a -> a.clone(), () -> null), is(new boolean[]{false, true, true}));
+        // same order as boxed natural sort
+        double[] doubles = {Double.NaN, 0.0, -0.0, -1.0};
+        Double[] boxed = {Double.NaN, 0.0, -0.0, -1.0};
+        Arrays.sort(boxed);
+        assertThat(sortCompare.sortArray(doubles, null, a -> a.clone(), () -> null), is(Arrays.stream(boxed).mapToDouble(Double::doubleValue).toArray()));
+        // floats are sorted only with float comparators registered
+        assertThat(sortCompare.sortArray(new float[]{2, 1}, null, a -> a.clone(), () -> null), is(new float[]{2, 1}));
+
+        assertThat(sortCompare.diffs(new int[]{3, 1, 2, 7}, new int[]{2, 3, 1}), is(Arrays.asList(new Diff(".3", int.class, 7, "NULL"))));
+    }
+
+    @Test
+    public void testParallelMode() {
+
+        Position template = getObject(Position.class);
+        List<Position> left = new ArrayList<>();
+        Map<String, Position> leftMap = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            Position position = clone(template);
+            position.setBook("BOOK" + i);
+            position.setPositionAmt(i);
+            left.add(position);
+            leftMap.put("P" + i, position);
+        }
+        List<Position> right = clone((Serializable) left);
+        Map<String, Position> rightMap = new HashMap<>();
+        for (int i = 0; i < right.size(); i++)
+            rightMap.put("P" + i, right.get(i));
+        for (int i = 0; i < right.size(); i += 7)
+            right.get(i).setPositionAmt(right.get(i).getPositionAmt() + 1000.00);
+        right.get(100).setBook(null);
+        right.get(4_000).getStats()[1]++;
+        right.remove(right.size() - 1);
+        rightMap.remove("P42");
+
+        BeanCompare parallelCompare = new BeanCompare();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallelCompare.setParallelPool(pool);
+            parallelCompare.setParallelThreshold(1_000);
+
+            List<Diff> expected = beanCompare.diffs(left, right);
+            assertThat(expected.size(), greaterThan(700));
+            assertEquals(expected, parallelCompare.diffs(left, right));
+            assertEquals(beanCompare.fullDiffs(left, right), parallelCompare.fullDiffs(left, right));
+            assertEquals(beanCompare.diffs(leftMap, rightMap), parallelCompare.diffs(leftMap, rightMap));
+            Position[] leftArray = left.toArray(new Position[0]), rightArray = right.toArray(new Position[0]);
+            assertEquals(beanCompare.diffs(leftArray, rightArray), parallelCompare.diffs(leftArray, rightArray));
+
+            // differences limit applies to merged chunks the same way
+            DiffBudget budget = DiffBudget.UNLIMITED.withMaxDiffs(300);
+            assertEquals(beanCompare.diffs(left, right, budget), parallelCompare.diffs(left, right, budget));
+            assertEquals(beanCompare.firstDiff(left, right), parallelCompare.firstDiff(left, right));
+            assertThat(parallelCompare.deepEquals(left, clone(left)), is(true));
+
+            // chunks stop at their first difference when looking for any
+            AtomicInteger fields = new AtomicInteger();
+            ContextFilter countingFilter = ContextFilter.of((path, l, r, f) -> fields.incrementAndGet() > 0);
+            assertThat(parallelCompare.deepEquals(left, right, parallelCompare.checkDiffNulls(), countingFilter, f -> true), is(false));
+            assertThat(fields.get(), lessThan(left.size()));
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> parallelCompare.setParallelThreshold(0));
+    }
+
+    @Test
+    public void testParallelFields() {
+
+        Portfolio left = getObject(Portfolio.class);
+        Position template = getObject(Position.class);
+        Position[] positions = new Position[3_000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = clone(template);
+            positions[i].setBook("BOOK" + i);
+        }
+        left.setArrayPositions(positions);
+        List<String> products = new ArrayList<>();
+        Map<String, Double> fxRates = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            products.add("PRODUCT" + i);
+            fxRates.put("CCY" + i, (double) i);
+        }
+        left.setProducts(products);
+        left.setFxRates(fxRates);
+        left.setStats(new Random(42).longs(5_000).toArray());
+
+        Portfolio right = clone(left);
+        right.setBook("OTHER");
+        for (int i = 0; i < positions.length; i += 11)
+            right.getArrayPositions()[i].setPositionAmt(-1);
+        right.getProducts().set(1_500, "CHANGED");
+        right.getFxRates().remove("CCY7");
+        right.getStats()[4_999]++;
+        right.getPosition().setProduct(null);
+
+        BeanCompare parallelCompare = new BeanCompare();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallelCompare.setParallelPool(pool);
+            parallelCompare.setParallelThreshold(1_000);
+
+            List<Diff> expected = beanCompare.diffs(left, right);
+            assertThat(expected.size(), greaterThan(270));
+            // heavy fields are forked, differences still come in field order
+            assertEquals(expected, parallelCompare.diffs(left, right));
+            assertEquals(beanCompare.fullDiffs(left, right), parallelCompare.fullDiffs(left, right));
+            DiffBudget budget = DiffBudget.UNLIMITED.withMaxDiffs(100);
+            assertEquals(beanCompare.diffs(left, right, budget), parallelCompare.diffs(left, right, budget));
+            assertEquals(beanCompare.firstDiff(left, right), parallelCompare.firstDiff(left, right));
+            assertThat(parallelCompare.deepEquals(left, clone(left)), is(true));
+        } finally {
+            pool.shutdown();
+        }
+
+        // forked tasks compare their sub trees sequentially
+        DiffCollector collector = DiffCollector.of(new ArrayList<>());
+        assertThat(collector.isForkable(), is(true));
+        assertThat(collector.fork().isForkable(), is(false));
+    }
+
+    @Test
+    public void testVisitedPairs() {
+
+        Desk leftDesk = new Desk("RATES", 5, 1_000_000.0), rightDesk = new Desk("RATES", 5, 2_000_000.0);
+        Team left = new Team("LONDON", leftDesk, null), right = new Team("LONDON", rightDesk, null);
+        new Team("SWAPS", leftDesk, left);
+        new Team("BONDS", leftDesk, left);
+        new Team("SWAPS", rightDesk, right);
+        new Team("GILTS", rightDesk, right);
+
+        BeanCompare trackedCompare = new BeanCompare();
+        trackedCompare.setTrackVisited(true);
+        assertThat(beanCompare.isTrackVisited(), is(false));
+
+        // back references to the parent end where the same pair is reached again, shared desk differs under every path,
+        // while both null parents of the roots differ as usual
+        List<String> names = trackedCompare.diffs(left, right).stream().map(Diff::getFieldName).collect(Collectors.toList());
+        assertEquals(Arrays.asList("desk.limit", "parent", "members.0.desk.limit", "members.1.name", "members.1.desk.limit"), names);
+        assertThat(trackedCompare.fullDiffs(left, right), hasSize(10));
+
+        // with default settings cycles end deep down instead of overflowing the stack, repeating differences under longer paths
+        BeanCompare defaultCompare = new BeanCompare();
+        List<String> defaultNames = defaultCompare.diffs(left, right).stream().map(Diff::getFieldName).collect(Collectors.toList());
+        assertThat(defaultNames, hasItems(names.toArray(new String[0])));
+        assertThat(defaultNames, hasItem("members.0.parent.desk.limit"));
+        assertThat(defaultCompare.fullDiffs(left, right).size(), greaterThan(10));
+        assertThat(defaultCompare.deepEquals(left, right), is(false));
+
+        // equal shared desk is compared once
+        Desk desk = new Desk("RATES", 5, 1_000_000.0), otherDesk = new Desk("RATES", 5, 1_000_000.0);
+        List<Book> books = new ArrayList<>(), otherBooks = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            books.add(new Book("BOOK" + i, i, desk));
+            otherBooks.add(new Book("BOOK" + i, i, otherDesk));
+        }
+        otherBooks.get(500).version++;
+        DiffCollector tracked = DiffCollector.of(new ArrayList<>());
+        trackedCompare.diffs(DiffPath.EMPTY, books, otherBooks, trackedCompare.checkDiffNulls(), FieldCompare.allFieldContextFilter,
+                FieldCompare.isNotTransientOrStatic, tracked);
+        BeanCompare untrackedCompare = new BeanCompare();
+        List<Diff> untrackedDiffs = new ArrayList<>();
+        DiffCollector untracked = DiffCollector.of(untrackedDiffs);
+        untrackedCompare.diffs(DiffPath.EMPTY, books, otherBooks, untrackedCompare.checkDiffNulls(), FieldCompare.allFieldContextFilter,
+                FieldCompare.isNotTransientOrStatic, untracked);
+        assertThat(tracked.getCount(), is(1));
+        assertThat(untrackedDiffs, hasSize(1));
+        assertThat(tracked.getNodes(), lessThan(untracked.getNodes() - 2_000));
+    }
+
+    @Test
+    public void testFingerprints() {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        right.getPositions().get(1).setBook("OTHER");
+        right.getArrayPositions()[2].getStats()[0]++;
+        right.getFxRates().remove(left.getFxRates().keySet().iterator().next());
+        List<Diff> expected = beanCompare.diffs(left, right);
+        assertThat(expected, hasSize(3));
+
+        BeanCompare fingerprintCompare = new BeanCompare();
+        for (FieldCompare.FingerprintMode mode : FieldCompare.FingerprintMode.values()) {
+            fingerprintCompare.setFingerprintMode(mode);
+            assertEquals(expected, fingerprintCompare.diffs(left, right));
+            assertEquals(beanCompare.fullDiffs(left, right), fingerprintCompare.fullDiffs(left, right));
+            assertThat(fingerprintCompare.deepEquals(left, clone(left)), is(true));
+            // custom context filters may depend on the path, so fingerprints are not used with them
+            assertEquals(beanCompare.diffsWithContextFilter(left, right, PathFilter.excludes("fxRates")),
+                    fingerprintCompare.diffsWithContextFilter(left, right, PathFilter.excludes("fxRates")));
+        }
+
+        // unchanged beans without equals are skipped by their fingerprints, kept from the first comparison
+        List<Book> books = new ArrayList<>(), otherBooks = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            books.add(new Book("BOOK" + i, i, new Desk("DESK" + i, i, i * 1_000.0)));
+            otherBooks.add(new Book("BOOK" + i, i, new Desk("DESK" + i, i, i * 1_000.0)));
+        }
+        otherBooks.get(500).desk.traders++;
+        fingerprintCompare.setFingerprintMode(FieldCompare.FingerprintMode.TRUST);
+        assertThat(fingerprintCompare.diffs(books, otherBooks), hasSize(1));
+        DiffCollector trusted = DiffCollector.of(new ArrayList<>()), compared = DiffCollector.of(new ArrayList<>());
+        fingerprintCompare.diffs(DiffPath.EMPTY, books, otherBooks, fingerprintCompare.checkDiffNulls(), FieldCompare.allFieldContextFilter,
+                FieldCompare.isNotTransientOrStatic, trusted);
+        beanCompare.diffs(DiffPath.EMPTY, books, otherBooks, beanCompare.checkDiffNulls(), FieldCompare.allFieldContextFilter,
+                FieldCompare.isNotTransientOrStatic, compared);
+        assertThat(trusted.getCount(), is(1));
+        assertThat(trusted.getNodes(), lessThan(compared.getNodes() / 5));
+
+        // changed objects are missed by trusted fingerprints until they are cleared, unlike verified ones
+        right.getPositions().get(3).setPositionAmt(-1);
+        assertThat(fingerprintCompare.diffs(left, right), hasSize(3));
+        fingerprintCompare.clearFingerprints();
+        assertThat(fingerprintCompare.diffs(left, right), hasSize(4));
+        fingerprintCompare.setFingerprintMode(FieldCompare.FingerprintMode.VERIFY);
+        right.getPositions().get(4).setPositionAmt(-1);
+        assertThat(fingerprintCompare.diffs(left, right), hasSize(5));
+
+        // values differing past 64 bits or in nanos only have different fingerprints
+        BigDecimal big = new BigDecimal(BigInteger.ONE.shiftLeft(100));
+        Timestamp time = new Timestamp(1_000L), otherTime = new Timestamp(1_000L);
+        otherTime.setNanos(1);
+        List<Object> values = Arrays.asList(big, time, new UUID(1, 2), URI.create("a"));
+        List<Object> otherValues = Arrays.asList(big.add(new BigDecimal(BigInteger.ONE.shiftLeft(90))), otherTime, new UUID(2, 1), URI.create("a"));
+        fingerprintCompare.setFingerprintMode(FieldCompare.FingerprintMode.TRUST);
+        assertThat(fingerprintCompare.diffs(values, otherValues), hasSize(3));
+        assertEquals(beanCompare.diffs(values, otherValues), fingerprintCompare.diffs(values, otherValues));
+
+        // objects with null references or on reference cycles have no fingerprint and are compared
+        Team team = new Team("LONDON", new Desk("RATES", 5, 1.0), null), otherTeam = new Team("LONDON", new Desk("RATES", 5, 1.0), null);
+        new Team("SWAPS", team.desk, team);
+        new Team("SWAPS", otherTeam.desk, otherTeam);
+        BeanCompare trackedCompare = new BeanCompare();
+        trackedCompare.setTrackVisited(true);
+        fingerprintCompare.setTrackVisited(true);
+        assertEquals(trackedCompare.diffs(team, otherTeam), fingerprintCompare.diffs(team, otherTeam));
+        assertThat(fingerprintCompare.diffs(team, otherTeam), hasSize(1));
+    }
+
+    @Test
+    public void testSortedViewsReused() {
+
+        Portfolio left = getObject(Portfolio.class);
+        Portfolio right = clone(left);
+        Collections.shuffle(right.getPositions());
+        right.getPositions().get(0).setPositionAmt(right.getPositions().get(0).getPositionAmt() + 1000.00);
+
+        int[] comparisons = new int[1];
+        BeanCompare sortCompare = new BeanCompare();
+        sortCompare.addComparator(Position.class, (l, r) -> {
+            comparisons[0]++;
+            return l.getBook().compareTo(r.getBook());
+        });
+
+        List<Diff> diffs = sortCompare.diffs(left, right);
+        assertThat(diffs, hasSize(1));
+        int oneWay = comparisons[0];
+        assertThat(oneWay, greaterThan(0));
+
+        // full diffs reach both lists again the other way, their sorted copies are reused
+        comparisons[0] = 0;
+        assertThat(sortCompare.fullDiffs(left, right), hasSize(2));
+        assertThat(comparisons[0], is(oneWay));
+    }
+
 }
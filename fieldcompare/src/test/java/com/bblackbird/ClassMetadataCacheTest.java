@@ -0,0 +1,90 @@
+package com.bblackbird;
+
+import com.bblackbird.BeanCompareTest.Portfolio;
+import com.bblackbird.BeanCompareTest.Position;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ClassMetadataCacheTest {
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        ClassMetadataCache cache = new ClassMetadataCache();
+
+        ClassMetadata metadata = cache.get(Portfolio.class);
+        assertThat(cache.get(Portfolio.class), sameInstance(metadata));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+
+        Field positions = Portfolio.class.getDeclaredField("positions");
+        assertEquals(Position.class, metadata.getElementType(positions));
+        assertThat(metadata.getAccessor(positions).getField(), sameInstance(metadata.getDeclaredFields()[metadata.indexOf(positions)]));
+
+        Predicate<Field> fieldFilter = f -> true;
+        assertThat(metadata.getComparePlan(fieldFilter), sameInstance(metadata.getComparePlan(fieldFilter)));
+    }
+
+    @Test
+    public void testComputeOnce() throws Exception {
+        ClassMetadataCache cache = new ClassMetadataCache();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ClassMetadata>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(Portfolio.class);
+                }));
+            }
+            start.countDown();
+            ClassMetadata metadata = results.get(0).get();
+            for (Future<ClassMetadata> result : results) {
+                assertThat(result.get(), sameInstance(metadata));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(threads - 1, cache.getHitCount());
+    }
+
+    @Test
+    public void testEviction() {
+        ClassMetadataCache cache = new ClassMetadataCache(2);
+
+        ClassMetadata portfolio = cache.get(Portfolio.class);
+        cache.get(Position.class);
+        cache.get(String.class);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        // oldest entry is evicted first, and computed again on next use
+        assertThat(cache.get(Portfolio.class), not(sameInstance(portfolio)));
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount());
+
+        cache.invalidate(Portfolio.class);
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+
+        assertThrows(IllegalArgumentException.class, () -> cache.setMaximumSize(0));
+    }
+}
@@ -0,0 +1,167 @@
+package com.bblackbird;
+
+import com.bblackbird.BeanCompareTest.PositionType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comparators for beans below are generated by fieldcompare-processor when compiling tests.
+ */
+public class CompiledComparatorTest {
+
+    public static class Account {
+        private String id;
+        private long version;
+
+        public String getId() {
+            return id;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    @GenerateComparator
+    public static class Trade extends Account {
+        String book;
+        double amount;
+        int quantity;
+        boolean active;
+        Integer rank;
+        PositionType type;
+        List<String> traders;
+        long[] stats;
+        Trade parent;
+        private String comment;
+        private String secret;
+
+        public String getComment() {
+            return comment;
+        }
+
+        String getSecret() {
+            return secret;
+        }
+    }
+
+    @GenerateComparator
+    public record Quote(String symbol, double bid, double ask) {
+    }
+
+    private final BeanCompare beanCompare = new BeanCompare();
+
+    private final BeanCompare reflectionCompare = new BeanCompare();
+
+    {
+        reflectionCompare.setEngine(FieldCompare.Engine.REFLECTION);
+    }
+
+    private static Trade trade() {
+        Trade trade = new Trade();
+        trade.book = "BOOK";
+        trade.amount = 100.5;
+        trade.quantity = 10;
+        trade.active = true;
+        trade.rank = 1000;
+        trade.type = PositionType.BLACK;
+        trade.traders = new ArrayList<>(Arrays.asList("A", "B", "C"));
+        trade.stats = new long[]{1L, 2L, 3L};
+        trade.comment = "comment";
+        trade.secret = "secret";
+        return trade;
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        CompiledComparator comparator = CompiledComparator.find(Trade.class);
+
+        assertThat(comparator, not(nullValue()));
+        assertEquals(Trade.class, comparator.getType());
+        assertEquals("com.bblackbird.CompiledComparatorTest_Trade_FieldComparator", CompiledComparator.comparatorName(Trade.class));
+
+        // every field is covered, private ones read through getters, so none is left to reflection
+        List<Field> fields = new ArrayList<>(Arrays.asList(Trade.class.getDeclaredFields()));
+        fields.addAll(Arrays.asList(Account.class.getDeclaredFields()));
+        for (Field field : fields)
+            assertThat(field.getName(), comparator.indexOf(field), not(-1));
+        assertEquals(fields.size(), comparator.size());
+        Trade trade = trade();
+        assertEquals("secret", comparator.getValue(comparator.indexOf(Trade.class.getDeclaredField("secret")), trade));
+        assertEquals("comment", comparator.getValue(comparator.indexOf(Trade.class.getDeclaredField("comment")), trade));
+
+        // primitive fields are read without boxing, through compiled comparator in compare plan too
+        int amount = comparator.indexOf(Trade.class.getDeclaredField("amount"));
+        assertEquals(100.5, comparator.getDouble(amount, trade));
+        ((Account) trade).version = 1000L;
+        assertEquals(1000L, comparator.getLong(comparator.indexOf(Account.class.getDeclaredField("version")), trade));
+        assertThrows(IllegalArgumentException.class, () -> comparator.getInt(amount, trade));
+        ComparePlan plan = FieldCompare.getComparePlan(Trade.class, f -> true);
+        GeneratedComparator planned = plan.getCompiledComparator();
+        for (int i = 0; i < plan.fields.length; i++)
+            assertThat(plan.fields[i].field.getName(), planned.getAccessor(i), instanceOf(CompiledComparatorAdapter.CompiledAccessor.class));
+
+        // record components are read through their accessors
+        CompiledComparator quoteComparator = CompiledComparator.find(Quote.class);
+        assertEquals(3, quoteComparator.size());
+        Quote quote = new Quote("ABC", 1.5, 1.6);
+        assertEquals("ABC", quoteComparator.getValue(quoteComparator.indexOf(Quote.class.getDeclaredField("symbol")), quote));
+        assertEquals(1.5, quoteComparator.getValue(quoteComparator.indexOf(Quote.class.getDeclaredField("bid")), quote));
+        assertEquals(1.6, quoteComparator.getValue(quoteComparator.indexOf(Quote.class.getDeclaredField("ask")), quote));
+
+        assertThat(CompiledComparator.find(BeanCompareTest.Portfolio.class), nullValue());
+        assertThat(FieldCompare.getComparePlan(Trade.class, f -> true).getCompiledComparator(), instanceOf(CompiledComparatorAdapter.class));
+        assertThat(FieldCompare.getComparePlan(Quote.class, f -> true).getCompiledComparator(), not(nullValue()));
+    }
+
+    @Test
+    public void testCompiledEngine() {
+        // compiled comparators are used by default, reflection only when asked for
+        assertEquals(FieldCompare.Engine.COMPILED, beanCompare.getEngine());
+        Trade left = trade();
+        Trade right = trade();
+        left.parent = trade();
+        right.parent = trade();
+
+        // both null bean references are reported as NULL diffs in either engine
+        assertEquals(reflectionCompare.diffs(left, right), beanCompare.diffs(left, right));
+
+        right.book = "BOOK_DIFF";
+        right.amount = 200.5;
+        right.active = false;
+        right.rank = 2000;
+        left.type = null;
+        right.traders.set(1, "X");
+        right.stats[2] = 30L;
+        right.comment = null;
+        right.secret = "secret_DIFF";
+        right.parent.quantity = 20;
+
+        List<Diff> expected = reflectionCompare.diffs(left, right, f -> true);
+        List<Diff> diffs = beanCompare.diffs(left, right, f -> true);
+
+        assertThat(diffs, not(empty()));
+        assertEquals(expected, diffs);
+        // private fields differ through the compiled comparator, which covers all of them
+        assertThat(diffs, hasItem(new Diff("secret", String.class, "secret", "secret_DIFF")));
+        assertThat(diffs, hasItem(new Diff("comment", String.class, "comment", "NULL")));
+        assertEquals(reflectionCompare.fullDiffs(left, right), beanCompare.fullDiffs(left, right));
+
+        Quote quote = new Quote("ABC", 1.5, 1.6);
+        assertThat(beanCompare.diffs(quote, new Quote("ABC", 1.5, 1.6)), empty());
+        assertEquals(Arrays.asList(new Diff("ask", double.class, 1.6, 1.7)), beanCompare.diffs(quote, new Quote("ABC", 1.5, 1.7)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.bblackbird;
+
+import com.bblackbird.BeanCompareTest.Portfolio;
+import com.bblackbird.BeanCompareTest.Position;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares original {@link Field#get(Object)} read path against cached {@link FieldAccessor} reads,
+ * and measures the end to end diffs on the test Portfolio graph, both in reflection and generated engine mode.
+ *
+ * Run with:
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java "-Dexec.args=-cp %classpath com.bblackbird.FieldAccessBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldAccessBenchmark {
+
+    private Position position;
+    private Portfolio left;
+    private Portfolio right;
+    private List<Field> fields;
+    private List<FieldAccessor> accessors;
+    private FieldAccessor positionAmt;
+    private Field positionAmtField;
+    private BeanCompare beanCompare;
+    private BeanCompare generatedCompare;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        position = BeanCompareTest.getObject(Position.class);
+        left = BeanCompareTest.getObject(Portfolio.class);
+        right = BeanCompareTest.clone(left);
+        right.setBook(left.getBook() + "_DIFF");
+        right.getPositions().get(0).setPositionAmt(left.getPositions().get(0).getPositionAmt() + 1.0);
+        fields = FieldCompare.getAllDeclaredFields(Position.class, FieldCompare.isTransientOrStatic.negate());
+        accessors = FieldCompare.getAllDeclaredAccessors(Position.class, FieldCompare.isTransientOrStatic.negate());
+        positionAmtField = Position.class.getDeclaredField("positionAmt");
+        positionAmt = FieldCompare.getFieldAccessor(positionAmtField);
+        // engines are set explicitly, so the default can't change what is measured
+        beanCompare = new BeanCompare();
+        beanCompare.setEngine(FieldCompare.Engine.REFLECTION);
+        generatedCompare = new BeanCompare();
+        generatedCompare.setEngine(FieldCompare.Engine.GENERATED);
+    }
+
+    @Benchmark
+    public void reflectionGet(Blackhole bh) {
+        for (Field f : fields) {
+            FieldCompare.makeAccessible(f);
+            bh.consume(FieldCompare.getField(f, position));
+        }
+    }
+
+    @Benchmark
+    public void accessorGet(Blackhole bh) {
+        for (FieldAccessor accessor : accessors) {
+            bh.consume(accessor.get(position));
+        }
+    }
+
+    @Benchmark
+    public double reflectionGetDouble() throws IllegalAccessException {
+        FieldCompare.makeAccessible(positionAmtField);
+        return (Double) positionAmtField.get(position);
+    }
+
+    @Benchmark
+    public double accessorGetDouble() {
+        return positionAmt.getDouble(position);
+    }
+
+    @Benchmark
+    public List<Diff> portfolioDiffs() {
+        return beanCompare.diffs(left, right, f -> true);
+    }
+
+    @Benchmark
+    public List<Diff> portfolioDiffsGenerated() {
+        return generatedCompare.diffs(left, right, f -> true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FieldAccessBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,68 @@
+package com.bblackbird;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PrimitiveSetsTest {
+
+    @Test
+    public void testSameMembershipAsBoxedSets() {
+        Random random = new Random(42);
+        int[] ints = random.ints(10_000, -5_000, 5_000).toArray();
+        long[] longs = random.longs(10_000, -5_000, 5_000).toArray();
+        Set<Integer> boxedInts = Arrays.stream(ints).boxed().collect(Collectors.toSet());
+        Set<Long> boxedLongs = Arrays.stream(longs).boxed().collect(Collectors.toSet());
+
+        PrimitiveSets.IntSet intSet = PrimitiveSets.of(ints);
+        PrimitiveSets.LongSet longSet = PrimitiveSets.of(longs);
+        for (int i = -10_000; i < 10_000; i++) {
+            assertThat(intSet.contains(i), is(boxedInts.contains(i)));
+            assertThat(longSet.contains((long) i), is(boxedLongs.contains((long) i)));
+        }
+        assertThat(PrimitiveSets.of(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE}).contains(Integer.MAX_VALUE), is(true));
+        assertThat(PrimitiveSets.of(new long[0]).contains(0L), is(false));
+    }
+
+    @Test
+    public void testFloatingPointEqualsSemantics() {
+        // same as Double.equals: NaN is found, -0.0 and 0.0 differ
+        PrimitiveSets.LongSet doubles = PrimitiveSets.of(new double[]{Double.NaN, 0.0, 1.5});
+        assertThat(doubles.contains(Double.NaN), is(true));
+        assertThat(doubles.contains(-0.0), is(false));
+        assertThat(doubles.contains(0.0), is(true));
+        assertThat(doubles.contains(1.5), is(true));
+
+        PrimitiveSets.IntSet floats = PrimitiveSets.of(new float[]{Float.NaN, -0.0f});
+        assertThat(floats.contains(Float.NaN), is(true));
+        assertThat(floats.contains(0.0f), is(false));
+        assertThat(floats.contains(-0.0f), is(true));
+    }
+
+    @Test
+    public void testSmallTypes() {
+        PrimitiveSets.IntSet shorts = PrimitiveSets.of(new short[]{Short.MIN_VALUE, 0, 7});
+        assertThat(shorts.contains(Short.MIN_VALUE), is(true));
+        assertThat(shorts.contains((short) 8), is(false));
+
+        BitSet bytes = PrimitiveSets.of(new byte[]{-128, -1, 0, 127});
+        assertThat(PrimitiveSets.contains(bytes, (byte) -1), is(true));
+        assertThat(PrimitiveSets.contains(bytes, (byte) 1), is(false));
+
+        BitSet chars = PrimitiveSets.of("fieldcompare".toCharArray());
+        assertThat(PrimitiveSets.contains(chars, 'f'), is(true));
+        assertThat(PrimitiveSets.contains(chars, 'z'), is(false));
+
+        int booleans = PrimitiveSets.of(new boolean[]{true, true});
+        assertThat(PrimitiveSets.contains(booleans, true), is(true));
+        assertThat(PrimitiveSets.contains(booleans, false), is(false));
+        assertThat(PrimitiveSets.contains(PrimitiveSets.of(new boolean[0]), true), is(false));
+    }
+}